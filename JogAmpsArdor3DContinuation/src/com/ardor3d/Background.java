@@ -5,6 +5,7 @@
  */
 package com.ardor3d;
 
+import com.ardor3d.math.Transform;
 import com.ardor3d.renderer.Renderer;
 import com.ardor3d.renderer.queue.RenderBucketType;
 import com.ardor3d.renderer.state.ZBufferState;
@@ -12,10 +13,11 @@ import com.ardor3d.scenegraph.Node;
 import com.ardor3d.scenegraph.hint.LightCombineMode;
 import com.ardor3d.scenegraph.shape.Quad;
 import java.awt.Component;
-import java.awt.event.ComponentAdapter;
-import java.awt.event.ComponentEvent;
 
 /**
+ * Background drawn behind the scene in pixel coordinates. The owner resizes
+ * it with {@link #resize(int, int)}, e.g. at the start of a frame, and draws
+ * it with one of the renderUnto methods.
  *
  * @author Andreas Hauffe
  */
@@ -24,25 +26,21 @@ public abstract class Background extends Node{
     protected final Quad backgroundQuad;
     
     protected final Component canvas;
+    
+    protected int width;
+    protected int height;
 
     @SuppressWarnings("this-escape")
     public Background(Component canvas) {
         super("Background");
         
         this.canvas = canvas;
-        canvas.addComponentListener(new ComponentAdapter() {
-            @Override
-            public void componentResized(ComponentEvent e) {
-                super.componentResized(e);
-                update();
-            }
-
-        });
         
-        int width = Math.max(canvas.getWidth(), 10);
-        int height = Math.max(canvas.getHeight(), 10);
+        width = Math.max(canvas.getWidth(), 10);
+        height = Math.max(canvas.getHeight(), 10);
         
         backgroundQuad = new Quad("BackgroundQuad", width, height);
+        backgroundQuad.setTranslation(width/2.0, height/2.0, 0.0);
         backgroundQuad.getSceneHints().setLightCombineMode(LightCombineMode.Off);
         backgroundQuad.getSceneHints().setOrthoOrder(1);
 
@@ -63,6 +61,63 @@ public abstract class Background extends Node{
         return true;
     }
     
+    /**
+     * Renders the part of the background which is covered by one tile of an
+     * image with the given size. The background is stretched to the image.
+     *
+     * @param renderer the renderer
+     * @param width width of the image
+     * @param height height of the image
+     * @param x left pixel of the tile in the image
+     * @param y bottom pixel of the tile in the image
+     * @return true
+     */
+    public boolean renderUnto(Renderer renderer, int width, int height, int x, int y) {
+        final Transform transform = new Transform(getTransform());
+        setScale(width / backgroundQuad.getWidth(), height / backgroundQuad.getHeight(), 1.0);
+        setTranslation(-x, -y, 0.0);
+        updateWorldTransform(true);
+        renderUnto(renderer);
+        setTransform(transform);
+        updateWorldTransform(true);
+        return true;
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Sets the size of the background in pixels and updates it.
+     *
+     * @param width width in pixels
+     * @param height height in pixels
+     */
+    public void resize(int width, int height) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        update();
+    }
+    
+    /**
+     * Adapts the background to the current size.
+     */
     protected abstract void update();
     
+    /**
+     * Releases the textures of the background. Has to be called when the
+     * background is replaced or the view is closed.
+     */
+    public void dispose() {
+    }
+    
 }
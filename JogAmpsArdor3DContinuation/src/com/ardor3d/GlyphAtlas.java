@@ -0,0 +1,178 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.ardor3d;
+
+import com.ardor3d.image.Texture;
+import com.ardor3d.image.util.awt.AWTImageLoader;
+import com.ardor3d.util.TextureManager;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Texture with the glyphs of one font, shared by all {@link TextLabelBatch}es
+ * using this font. The printable ASCII characters are rasterized when the
+ * atlas is created, further characters when they are used for the first
+ * time. The glyphs are drawn in white, the color of a label is the vertex
+ * color. Characters which do not fit into the atlas anymore are skipped.
+ *
+ * @author Andreas Hauffe
+ */
+public final class GlyphAtlas {
+
+    public static final int SIZE = 1024;
+
+    private static final int PADDING = 1;
+
+    private static final Map<Font, GlyphAtlas> ATLASES = new HashMap<>();
+
+    private final Font font;
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+    private final FontRenderContext renderContext;
+    private final int ascent;
+    private final int lineHeight;
+    private final Map<Character, Glyph> glyphs = new HashMap<>();
+
+    private int cursorX = PADDING;
+    private int cursorY = PADDING;
+    private boolean full = false;
+
+    private Texture texture;
+    private boolean changed = true;
+
+    /**
+     * @param font the font
+     * @return the shared atlas of the font
+     */
+    public static synchronized GlyphAtlas get(Font font) {
+        return ATLASES.computeIfAbsent(font, GlyphAtlas::new);
+    }
+
+    private GlyphAtlas(Font font) {
+        this.font = font;
+        image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_4BYTE_ABGR);
+        graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+        graphics.setFont(font);
+        graphics.setColor(Color.WHITE);
+        renderContext = graphics.getFontRenderContext();
+        FontMetrics metrics = graphics.getFontMetrics();
+        ascent = metrics.getAscent();
+        lineHeight = metrics.getAscent() + metrics.getDescent();
+
+        for (char c = ' '; c <= '~'; c++) {
+            getGlyph(c);
+        }
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     * @return height of a line in pixels
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    public synchronized int getGlyphCount() {
+        return glyphs.size();
+    }
+
+    /**
+     * Returns the glyph of the character and rasterizes it if necessary.
+     *
+     * @param c the character
+     * @return the glyph or null if the atlas is full
+     */
+    synchronized Glyph getGlyph(char c) {
+        Glyph glyph = glyphs.get(c);
+        if (glyph != null || full) {
+            return glyph;
+        }
+        String text = String.valueOf(c);
+        GlyphVector vector = font.createGlyphVector(renderContext, text);
+        int advance = (int) Math.ceil(vector.getGlyphMetrics(0).getAdvanceX());
+        // the glyph may reach beyond its advance, e.g. in italic fonts
+        Rectangle bounds = vector.getPixelBounds(renderContext, 0, 0);
+        int left = Math.min(0, bounds.x);
+        int width = Math.max(advance, bounds.x + bounds.width) - left;
+
+        if (cursorX + width + PADDING > SIZE) {
+            cursorX = PADDING;
+            cursorY += lineHeight + PADDING;
+        }
+        if (cursorY + lineHeight + PADDING > SIZE) {
+            full = true;
+            return null;
+        }
+        graphics.drawString(text, cursorX - left, cursorY + ascent);
+        glyph = new Glyph(left, width, lineHeight, advance,
+                cursorX / (float) SIZE, cursorY / (float) SIZE,
+                (cursorX + width) / (float) SIZE, (cursorY + lineHeight) / (float) SIZE);
+        glyphs.put(c, glyph);
+        cursorX += width + PADDING;
+        changed = true;
+        return glyph;
+    }
+
+    /**
+     * Returns the texture of the atlas. A new texture is created if glyphs
+     * have been added since the last call, the previous one is released.
+     *
+     * @return the texture
+     */
+    public synchronized Texture getTexture() {
+        if (changed) {
+            Texture old = texture;
+            // the glyphs are drawn in their size, so no mipmaps are needed
+            texture = TextureTracker.acquire(TextureManager.loadFromImage(AWTImageLoader.makeArdor3dImage(image, false), Texture.MinificationFilter.BilinearNoMipMaps));
+            TextureTracker.release(old);
+            changed = false;
+        }
+        return texture;
+    }
+
+    /**
+     * Position and size of a glyph in pixels and its texture coordinates.
+     * The row 0 of the atlas image has the texture coordinate t = 0.
+     */
+    static final class Glyph {
+
+        final int left;
+        final int width;
+        final int height;
+        final int advance;
+        final float s0;
+        final float t0;
+        final float s1;
+        final float t1;
+
+        Glyph(int left, int width, int height, int advance, float s0, float t0, float s1, float t1) {
+            this.left = left;
+            this.width = width;
+            this.height = height;
+            this.advance = advance;
+            this.s0 = s0;
+            this.t0 = t0;
+            this.s1 = s1;
+            this.t1 = t1;
+        }
+    }
+}
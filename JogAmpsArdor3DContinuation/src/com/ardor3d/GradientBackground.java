@@ -5,18 +5,15 @@
  */
 package com.ardor3d;
 
-import com.ardor3d.framework.jogl.awt.JoglSwingCanvas;
-import com.ardor3d.image.Texture;
-import com.ardor3d.image.util.awt.AWTImageLoader;
-import com.ardor3d.renderer.state.TextureState;
-import com.ardor3d.util.TextureManager;
+import com.ardor3d.util.geom.BufferUtils;
 import java.awt.Color;
 import java.awt.Component;
-import java.awt.GradientPaint;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
+import java.nio.FloatBuffer;
 
 /**
+ * Background with a vertical color gradient. The gradient is interpolated
+ * between the vertex colors of the background quad, so a resize only moves
+ * the vertices.
  *
  * @author Andreas Hauffe
  */
@@ -25,14 +22,20 @@ public class GradientBackground extends Background{
     private Color colorTop = Color.WHITE;
     private Color colorButtom = Color.BLUE;
     
+    @SuppressWarnings("this-escape")
     public GradientBackground(Component canvas) {
         super(canvas);
+        backgroundQuad.getMeshData().setColorBuffer(BufferUtils.createColorBuffer(4));
+        updateColors();
+        update();
     }
     
+    @SuppressWarnings("this-escape")
     public GradientBackground(Component canvas, Color colorTop, Color colorButtom) {
         this(canvas);
         this.colorTop = colorTop;
         this.colorButtom = colorButtom;
+        updateColors();
     }
 
     public Color getColorTop() {
@@ -41,7 +44,7 @@ public class GradientBackground extends Background{
 
     public void setColorTop(Color colorTop) {
         this.colorTop = colorTop;
-        update();
+        updateColors();
     }
 
     public Color getColorButtom() {
@@ -50,34 +53,29 @@ public class GradientBackground extends Background{
 
     public void setColorButtom(Color colorButtom) {
         this.colorButtom = colorButtom;
-        update();
+        updateColors();
     }
     
     @Override
     protected void update(){
-        
-        float[] pixelScale = new float[]{1.0f, 1.0f};
-        if (canvas instanceof JoglSwingCanvas joglSwingCanvas){
-            pixelScale = joglSwingCanvas.getCurrentSurfaceScale(new float[2]);
-        }
-        int width = (int)(Math.max(canvas.getWidth(), 10) * pixelScale[0]);
-        int height = (int)(Math.max(canvas.getHeight(), 10) * pixelScale[0]);
         backgroundQuad.resize(width, height);
         backgroundQuad.setTranslation(width/2.0, height/2.0, 0.0);
-
-        BufferedImage gradientImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = (Graphics2D) gradientImage.getGraphics();
-
-        GradientPaint gp = new GradientPaint(0, 0, colorButtom, 0, height, colorTop);
-        g2d.setPaint(gp);
-        g2d.fillRect(0, 0, width, height);
-
-        g2d.dispose();
-
-        final TextureState ts = new TextureState();
-        ts.setTexture(TextureManager.loadFromImage(AWTImageLoader.makeArdor3dImage(gradientImage, false), Texture.MinificationFilter.Trilinear));
-
-        backgroundQuad.setRenderState(ts);
+    }
+    
+    /**
+     * Writes the colors of the top and the bottom edge into the vertex colors
+     * of the quad, whose vertices are ordered top left, bottom left, bottom
+     * right and top right.
+     */
+    private void updateColors(){
+        final float[] top = colorTop.getRGBComponents(null);
+        final float[] buttom = colorButtom.getRGBComponents(null);
+        
+        final FloatBuffer colors = backgroundQuad.getMeshData().getColorBuffer();
+        colors.clear();
+        colors.put(top).put(buttom).put(buttom).put(top);
+        colors.rewind();
+        backgroundQuad.getMeshData().getColorCoords().setNeedsRefresh(true);
     }
     
 }
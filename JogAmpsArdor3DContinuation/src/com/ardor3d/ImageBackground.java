@@ -7,30 +7,39 @@ package com.ardor3d;
 
 import com.ardor3d.image.Texture;
 import com.ardor3d.image.util.awt.AWTImageLoader;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.renderer.state.RenderState;
 import com.ardor3d.renderer.state.TextureState;
 import com.ardor3d.util.TextureManager;
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.nio.FloatBuffer;
 
 /**
+ * Background showing an image, which is fitted into the canvas and centered
+ * on a white area. The image is uploaded once as mipmapped texture. On a
+ * resize only the quad and its texture coordinates change, the area beside
+ * the image is covered by the white border of the texture.
  *
  * @author Andreas Hauffe
  */
 public class ImageBackground extends Background{
     
     private Image image;
+    private Texture texture;
+    private int imageWidth;
+    private int imageHeight;
 
     public ImageBackground(Component canvas) {
         super(canvas);
     }
     
+    @SuppressWarnings("this-escape")
     public ImageBackground(Component canvas, BufferedImage image) {
         this(canvas);
-        this.image = image;
+        setImage(image);
     }
 
     public Image getImage() {
@@ -39,35 +48,98 @@ public class ImageBackground extends Background{
 
     public void setImage(Image image) {
         this.image = image;
+        if (image == null){
+            setTexture(null, 0, 0);
+            return;
+        }
+        BufferedImage bufferedImage;
+        if (image instanceof BufferedImage){
+            bufferedImage = (BufferedImage)image;
+        } else {
+            bufferedImage = new BufferedImage(image.getWidth(null), image.getHeight(null), BufferedImage.TYPE_3BYTE_BGR);
+            Graphics2D g2d = bufferedImage.createGraphics();
+            g2d.drawImage(image, 0, 0, null);
+            g2d.dispose();
+        }
+        setTexture(createTexture(bufferedImage), bufferedImage.getWidth(), bufferedImage.getHeight());
+    }
+
+    public Texture getTexture() {
+        return texture;
+    }
+    
+    /**
+     * Sets a texture created by {@link #createTexture(BufferedImage)}, e.g.
+     * a cached one. The background acquires the texture from the
+     * {@link TextureTracker} and releases the previous one.
+     *
+     * @param texture the texture or null for a white background
+     * @param imageWidth width of the image in pixels
+     * @param imageHeight height of the image in pixels
+     */
+    public void setTexture(Texture texture, int imageWidth, int imageHeight) {
+        TextureTracker.acquire(texture);
+        TextureTracker.release(this.texture);
+        this.texture = texture;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        if (texture == null){
+            backgroundQuad.clearRenderState(RenderState.StateType.Texture);
+        } else {
+            final TextureState ts = new TextureState();
+            ts.setTexture(texture);
+            backgroundQuad.setRenderState(ts);
+        }
         update();
     }
     
+    @Override
+    public void dispose() {
+        TextureTracker.release(texture);
+        texture = null;
+        backgroundQuad.clearRenderState(RenderState.StateType.Texture);
+    }
+    
+    /**
+     * Creates a mipmapped texture of the image with a white border.
+     *
+     * @param image the image
+     * @return the texture
+     */
+    public static Texture createTexture(BufferedImage image) {
+        final Texture texture = TextureManager.loadFromImage(AWTImageLoader.makeArdor3dImage(image, false), Texture.MinificationFilter.Trilinear);
+        texture.setWrap(Texture.WrapMode.BorderClamp);
+        texture.setBorderColor(ColorRGBA.WHITE);
+        return texture;
+    }
+    
     @Override
     protected void update(){
         
-        int width = Math.max(canvas.getWidth(), 10);
-        int height = Math.max(canvas.getHeight(), 10);
         backgroundQuad.resize(width, height);
         backgroundQuad.setTranslation(width/2.0, height/2.0, 0.0);
 
-        BufferedImage gradientImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = (Graphics2D) gradientImage.getGraphics();
-
-        g2d.setPaint(Color.WHITE);
-        g2d.fillRect(0, 0, width, height);
-        if (image != null){
-            double scale = Math.min(width/(double)image.getWidth(null), height/(double)image.getHeight(null));
-            double transX = width/2.0-(double)image.getWidth(null)*scale/2.0;
-            double transY = height/2.0-(double)image.getHeight(null)*scale/2.0;
-            g2d.drawImage(image, new AffineTransform(scale,0f,0f,scale,transX,transY), null);
+        if (texture == null){
+            return;
         }
+        // the image is fitted into the canvas and centered
+        double scale = Math.min(width/(double)imageWidth, height/(double)imageHeight);
+        double transX = width/2.0-(double)imageWidth*scale/2.0;
+        double transY = height/2.0-(double)imageHeight*scale/2.0;
+        float left = (float)(-transX/(imageWidth*scale));
+        float right = (float)((width-transX)/(imageWidth*scale));
+        float bottom = (float)(-transY/(imageHeight*scale));
+        float top = (float)((height-transY)/(imageHeight*scale));
 
-        g2d.dispose();
-
-        final TextureState ts = new TextureState();
-        ts.setTexture(TextureManager.loadFromImage(AWTImageLoader.makeArdor3dImage(gradientImage, false), Texture.MinificationFilter.Trilinear));
-
-        backgroundQuad.setRenderState(ts);
+        // top left, bottom left, bottom right, top right
+        final FloatBuffer texCoords = backgroundQuad.getMeshData().getTextureBuffer(0);
+        texCoords.clear();
+        texCoords.put(left).put(top);
+        texCoords.put(left).put(bottom);
+        texCoords.put(right).put(bottom);
+        texCoords.put(right).put(top);
+        texCoords.rewind();
+        backgroundQuad.getMeshData().getTextureCoords(0).setNeedsRefresh(true);
     }
     
 }
@@ -0,0 +1,109 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.ardor3d;
+
+import com.ardor3d.image.Texture;
+import java.awt.Color;
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of the textures of {@link RasterTextLabel}s. A label is rasterized
+ * and uploaded only once per text, attributes and color, so rebuilding e.g.
+ * the captions of a coordinate system reuses the textures. The least
+ * recently used textures are released if more than {@link #CACHE_SIZE}
+ * labels are cached. The cache is an owner of its textures in terms of the
+ * {@link TextureTracker}, so a texture is deleted when it has been dropped
+ * from the cache and no label uses it.
+ *
+ * @author Andreas Hauffe
+ */
+final class LabelTextureCache {
+
+    static final int CACHE_SIZE = 64;
+
+    private static final Map<List<Object>, Entry> CACHE = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+            if (size() > CACHE_SIZE) {
+                TextureTracker.release(eldest.getValue().texture);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private LabelTextureCache() {
+    }
+
+    /**
+     * Returns the texture of the label and rasterizes it if it is not cached.
+     * The texture is acquired for the caller, who has to release it.
+     *
+     * @param label the text with its attributes
+     * @param color the color of the text
+     * @return the cached texture and the size of the label in pixels
+     */
+    static Entry acquire(AttributedString label, Color color) {
+        final List<Object> key = createKey(label, color);
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(key);
+            if (entry == null) {
+                entry = RasterTextLabel.createEntry(label, color);
+                TextureTracker.acquire(entry.texture);
+                CACHE.put(key, entry);
+            }
+            TextureTracker.acquire(entry.texture);
+            return entry;
+        }
+    }
+
+    /**
+     * The key consists of the color and the text and attributes of every run
+     * of the label. The colors set by {@link RasterTextLabel} itself are left
+     * out, as they are added to the label while rasterizing.
+     */
+    private static List<Object> createKey(AttributedString label, Color color) {
+        final List<Object> key = new ArrayList<>();
+        key.add(color);
+        final AttributedCharacterIterator it = label.getIterator();
+        final StringBuilder run = new StringBuilder();
+        for (char c = it.first(); c != AttributedCharacterIterator.DONE; c = it.next()) {
+            run.append(c);
+            if (it.getIndex() + 1 == it.getRunLimit()) {
+                Map<AttributedCharacterIterator.Attribute, Object> attributes = new HashMap<>(it.getAttributes());
+                attributes.remove(TextAttribute.FOREGROUND);
+                attributes.remove(TextAttribute.BACKGROUND);
+                key.add(run.toString());
+                key.add(attributes);
+                run.setLength(0);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Texture of a label and the size of the label in pixels.
+     */
+    static final class Entry {
+
+        final Texture texture;
+        final int width;
+        final int height;
+
+        Entry(Texture texture, int width, int height) {
+            this.texture = texture;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
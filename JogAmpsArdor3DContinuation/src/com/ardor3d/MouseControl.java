@@ -34,6 +34,8 @@ public class MouseControl {
 
     protected double _zoomSpeedWheel = 0.02;
     protected double _zoomSpeedDrag = 0.01;
+
+    protected Runnable _interactionListener = null;
     
     //protected double scale_factor = 1.02;
 
@@ -91,6 +93,22 @@ public class MouseControl {
         layer.registerTrigger(new InputTrigger(rightDownMouseMoved, mouseTranslateAction));
     }
 
+    /**
+     * Sets a listener which is notified after every zoom, rotation and
+     * translation of the target.
+     *
+     * @param listener the listener or null
+     */
+    public void setInteractionListener(final Runnable listener) {
+        _interactionListener = listener;
+    }
+
+    protected void fireInteraction() {
+        if (_interactionListener != null) {
+            _interactionListener.run();
+        }
+    }
+
     public void zoom(final double percent) {
         if (_lookAtSpatial == null) {
             return;
@@ -102,6 +120,7 @@ public class MouseControl {
         _lookAtSpatial.setScale(Math.max(_lookAtSpatial.getScale().getX()*factor, 0.000001), 
                                 Math.max(_lookAtSpatial.getScale().getY()*factor, 0.000001), 
                                 Math.max(_lookAtSpatial.getScale().getZ()*factor, 0.000001));
+        fireInteraction();
     }
 
     public void rotate(final double xDif, final double yDif) {
@@ -112,6 +131,7 @@ public class MouseControl {
         rotationMatrix.fromAngles(-30 * yDif * MathUtils.DEG_TO_RAD, 30 * xDif * MathUtils.DEG_TO_RAD, 0.0);
         rotationMatrix.multiplyLocal(_lookAtSpatial.getRotation());
         _lookAtSpatial.setRotation(rotationMatrix);
+        fireInteraction();
     }
 
     public void translate(final double xDif, final double yDif) {
@@ -122,5 +142,6 @@ public class MouseControl {
         trans.addLocal(xDif, yDif, 0);
 
         _lookAtSpatial.setTranslation(trans);
+        fireInteraction();
     }
 }
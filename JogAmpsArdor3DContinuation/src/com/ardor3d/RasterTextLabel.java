@@ -40,20 +40,16 @@ import java.text.AttributedString;
  */
 public class RasterTextLabel extends Mesh {
 
-    /**
-     * Underlying image used. Only set if this is a dynamic label
-     */
-    private BufferedImage textImage;
-
     /**
      * The clear colour used to clear the background of the image
      */
     private static final Color CLEAR_COLOR = new Color(255, 255, 255, 0);
 
     /**
-     * The current color of the text
+     * Texture of the label, shared with all labels of the same text,
+     * attributes and color and released by {@link #dispose()}
      */
-    private final Color textColor;
+    private Texture texture;
     
     
     protected boolean _autoRotate = true;
@@ -121,70 +117,83 @@ public class RasterTextLabel extends Mesh {
             double x,
             double y,
             double z) {
-        textColor = col;
         if (label != null) {
+            final LabelTextureCache.Entry entry = LabelTextureCache.acquire(label, col);
 
-            // create a disposable 1x1 image so that we can fetch the font
-            // metrics associated with the font and text label. This will allow
-            // us to determine the real image size. This is kludgy, but I can't
-            // think of a better way of doing it!
-            BufferedImage tmp_img
-                    = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            init(entry.width, entry.height);
 
-            Graphics2D graphics = (Graphics2D) tmp_img.getGraphics();
+            texture = entry.texture;
+            final TextureState ts = new TextureState();
+            ts.setTexture(texture);
+            setRenderState(ts);
 
-            int width;
-            int height;
+            BlendState blend = new BlendState();
+            blend.setBlendEnabled(true);
+            setRenderState(blend);
 
-            TextLayout tl = new TextLayout(label.getIterator(), graphics.getFontRenderContext());
+            getSceneHints().setRenderBucketType(RenderBucketType.Transparent);
+            getSceneHints().setTransparencyType(TransparencyType.TwoPass);
 
-            width = (int) tl.getAdvance() + 1;
-            float ascent = tl.getAscent();
-            height = (int) (ascent + tl.getDescent()) + 1;
+            setTranslation(x, y, z);
+        }
+    }
 
-            graphics.dispose();
-            tmp_img.flush();
+    /**
+     * Rasterizes the label and creates its texture.
+     *
+     * @param label The string to render
+     * @param col The color of the text
+     * @return the texture and the size of the label
+     */
+    static LabelTextureCache.Entry createEntry(AttributedString label, Color col) {
+        // create a disposable 1x1 image so that we can fetch the font
+        // metrics associated with the font and text label. This will allow
+        // us to determine the real image size. This is kludgy, but I can't
+        // think of a better way of doing it!
+        BufferedImage tmp_img
+                = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
 
-            textImage = new BufferedImage(width,
-                    height,
-                    BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = (Graphics2D) tmp_img.getGraphics();
 
-            graphics = (Graphics2D) textImage.getGraphics();
+        int width;
+        int height;
 
-            renderImage(graphics, label, width, height, ascent);
+        TextLayout tl = new TextLayout(label.getIterator(), graphics.getFontRenderContext());
 
-            graphics.dispose();
+        width = (int) tl.getAdvance() + 1;
+        float ascent = tl.getAscent();
+        height = (int) (ascent + tl.getDescent()) + 1;
 
-            init();
+        graphics.dispose();
+        tmp_img.flush();
 
-            final TextureState ts = new TextureState();
-            ts.setTexture(TextureManager.loadFromImage(AWTImageLoader.makeArdor3dImage(textImage, false), Texture.MinificationFilter.Trilinear));
-            setRenderState(ts);
+        BufferedImage textImage = new BufferedImage(width,
+                height,
+                BufferedImage.TYPE_INT_ARGB);
 
-            BlendState blend = new BlendState();
-            blend.setBlendEnabled(true);
-            setRenderState(blend);
+        graphics = (Graphics2D) textImage.getGraphics();
 
-            getSceneHints().setRenderBucketType(RenderBucketType.Transparent);
-            getSceneHints().setTransparencyType(TransparencyType.TwoPass);
+        renderImage(graphics, label, col, width, height, ascent);
 
-            setTranslation(x, y, z);
-        }
+        graphics.dispose();
+
+        Texture texture = TextureManager.loadFromImage(AWTImageLoader.makeArdor3dImage(textImage, false), Texture.MinificationFilter.Trilinear);
+        return new LabelTextureCache.Entry(texture, width, height);
     }
 
     /**
-     * Convenience method to render the image given the font information. When
-     * this method exits, it will have changed the global imageWidth and
-     * imageHeight variables to the given width and height values.
+     * Convenience method to render the image given the font information.
      *
      * @param graphics The graphics context for textImage
      * @param label The string to render
+     * @param textColor The color of the text
      * @param width The width of the image drawn to
      * @param height The height of the image drawn to
      * @param ascent The ascent of the font in use
      */
-    private void renderImage(Graphics2D g,
+    private static void renderImage(Graphics2D g,
             AttributedString as,
+            Color textColor,
             int width,
             int height,
             float ascent) {
@@ -200,7 +209,7 @@ public class RasterTextLabel extends Mesh {
         g.drawString(as.getIterator(), 0, ascent);
     }
 
-    private void init() {
+    private void init(int width, int height) {
 
         FloatBuffer vertices = BufferUtils.createVector3Buffer(6);
         FloatBuffer texCrds = BufferUtils.createVector2Buffer(6);
@@ -212,8 +221,8 @@ public class RasterTextLabel extends Mesh {
         // -- vertices -----------------
         l = 0;
         t = 0;
-        r = textImage.getWidth();
-        b = textImage.getHeight();
+        r = width;
+        b = height;
 
         vertices.put(l).put(0).put(t); // left top
         vertices.put(l).put(0).put(b); // left bottom
@@ -236,6 +245,15 @@ public class RasterTextLabel extends Mesh {
         texCrds.put(r).put(b); // right bottom
     }
 
+    /**
+     * Releases the texture of the label. The label must not be drawn
+     * afterwards.
+     */
+    public void dispose() {
+        TextureTracker.release(texture);
+        texture = null;
+    }
+
     @Override
     public synchronized void draw(final Renderer r) {
         final Camera cam = Camera.getCurrentCamera();
@@ -286,7 +304,7 @@ public class RasterTextLabel extends Mesh {
         // calculate the height in world units of the screen at that depth
         final double heightAtZ;
         if (cam.getProjectionMode() == ProjectionMode.Parallel) {
-            heightAtZ = cam.getFrustumTop();
+            heightAtZ = 0.5 * (cam.getFrustumTop() - cam.getFrustumBottom());
         } else {
             heightAtZ = zDepth * cam.getFrustumTop() / cam.getFrustumNear();
         }
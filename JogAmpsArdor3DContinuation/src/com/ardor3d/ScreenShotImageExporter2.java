@@ -8,11 +8,19 @@ package com.ardor3d;
 import com.ardor3d.image.ImageDataFormat;
 import com.ardor3d.util.screen.ScreenExportable;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import javax.imageio.ImageIO;
 
 /**
@@ -26,7 +34,22 @@ public class ScreenShotImageExporter2 implements ScreenExportable {
     protected String _fileFormat;
     protected boolean _useAlpha;
 
-    protected File _lastFile;
+    protected volatile File _lastFile;
+    protected volatile CompletableFuture<File> _lastExport;
+
+    /**
+     * Number of rows converted by one task.
+     */
+    private static final int ROWS_PER_TASK = 64;
+
+    /**
+     * Encodes and writes the images, so the render thread does not wait for it.
+     */
+    private static final ExecutorService ENCODER = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "ScreenShot Encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Construct a new exporter.
@@ -52,38 +75,66 @@ public class ScreenShotImageExporter2 implements ScreenExportable {
     public void export(final ByteBuffer data, final int width, final int height) {
         final BufferedImage img = new BufferedImage(width, height, _useAlpha ? BufferedImage.TYPE_INT_ARGB
                 : BufferedImage.TYPE_INT_RGB);
-
-        int index, r, g, b, a;
-        int argb;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                index = (_useAlpha ? 4 : 3) * ((height - y - 1) * width + x);
-                r = ((data.get(index + 0)));
-                g = ((data.get(index + 1)));
-                b = ((data.get(index + 2)));
-
-                argb = ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
-
-                if (_useAlpha) {
-                    a = ((data.get(index + 3)));
-                    //argb |= (a & 0xFF) << 24;
-                    argb |= 0xFF << 24;
+        final int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        final int components = _useAlpha ? 4 : 3;
+
+        // GL rows start at the bottom, so the rows are flipped while copying
+        IntStream.range(0, (height + ROWS_PER_TASK - 1) / ROWS_PER_TASK).parallel().forEach(task -> {
+            final byte[] row = new byte[components * width];
+            final int last = Math.min(height, (task + 1) * ROWS_PER_TASK);
+            for (int y = task * ROWS_PER_TASK; y < last; y++) {
+                data.get((height - y - 1) * row.length, row);
+                int offset = y * width;
+                for (int x = 0, index = 0; x < width; x++, index += components) {
+                    // the alpha of the frame buffer is ignored
+                    pixels[offset + x] = 0xFF000000 | ((row[index] & 0xFF) << 16)
+                            | ((row[index + 1] & 0xFF) << 8) | (row[index + 2] & 0xFF);
                 }
-
-                img.setRGB(x, y, argb);
             }
-        }
-
-        try {
-            logger.fine("Taking screenshot: " + _file.getAbsolutePath());
+        });
+
+        final File file = _file;
+        final String fileFormat = _fileFormat;
+        _lastExport = CompletableFuture.supplyAsync(() -> {
+            try {
+                logger.fine("Taking screenshot: " + file.getAbsolutePath());
+
+                // write out the screen shot image to a file.
+                ImageIO.write(img, fileFormat, file);
+
+                // save our successful file to be accessed as desired.
+                _lastFile = file;
+                return file;
+            } catch (final IOException e) {
+                logger.logp(Level.WARNING, getClass().getName(), "export(ByteBuffer, int, int)", e.getLocalizedMessage(), e);
+                throw new UncheckedIOException(e);
+            }
+        }, ENCODER);
+    }
 
-            // write out the screen shot image to a file.
-            ImageIO.write(img, _fileFormat, _file);
+    /**
+     * @return the last export, which completes with the file once the image
+     *         is written, or null if nothing was exported yet.
+     */
+    public CompletableFuture<File> getLastExport() {
+        return _lastExport;
+    }
 
-            // save our successful file to be accessed as desired.
-            _lastFile = _file;
-        } catch (final IOException e) {
-            logger.logp(Level.WARNING, getClass().getName(), "export(ByteBuffer, int, int)", e.getLocalizedMessage(), e);
+    /**
+     * Waits until the image of the last export is written. It returns
+     * immediately, if nothing was exported yet.
+     */
+    public void waitForExport() {
+        final Future<File> export = _lastExport;
+        if (export == null) {
+            return;
+        }
+        try {
+            export.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            logger.logp(Level.WARNING, getClass().getName(), "waitForExport()", e.getLocalizedMessage(), e);
         }
     }
 
@@ -97,7 +148,8 @@ public class ScreenShotImageExporter2 implements ScreenExportable {
     }
 
     /**
-     * @return the last File written by this exporter, or null if none were written.
+     * @return the last File written by this exporter, or null if none were written. The images are written in the
+     *         background, see {@link #waitForExport()}.
      */
     public File getLastFile() {
         return _lastFile;
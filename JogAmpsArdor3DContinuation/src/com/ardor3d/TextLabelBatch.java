@@ -0,0 +1,248 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.ardor3d;
+
+import com.ardor3d.image.Texture;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.Camera.ProjectionMode;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.BlendState;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.hint.CullHint;
+import com.ardor3d.scenegraph.hint.LightCombineMode;
+import com.ardor3d.scenegraph.hint.TransparencyType;
+import com.ardor3d.util.geom.BufferUtils;
+import java.awt.Font;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Many text labels drawn as one mesh. The glyphs are taken from the
+ * {@link GlyphAtlas} of the font, so all labels share one texture and need
+ * one draw call. Like {@link RasterTextLabel} the labels face the camera,
+ * keep their size in pixels and hang below and right of their position.
+ *
+ * The quads of the glyphs are laid out when the labels change. Every draw
+ * only moves the vertices to the camera-facing positions.
+ *
+ * @author Andreas Hauffe
+ */
+public class TextLabelBatch extends Mesh {
+
+    private final GlyphAtlas atlas;
+    private final TextureState textureState = new TextureState();
+
+    private final List<Label> labels = new ArrayList<>();
+    private boolean layoutChanged = true;
+
+    /**
+     * Index of the label of every vertex
+     */
+    private int[] vertexLabels = new int[0];
+
+    /**
+     * Offset of every vertex from the label position in pixels, x to the
+     * right and y upwards
+     */
+    private float[] vertexOffsets = new float[0];
+
+    private final Vector3 _position = new Vector3();
+    private final Vector3 _right = new Vector3();
+    private final Vector3 _look = new Vector3();
+
+    @SuppressWarnings("this-escape")
+    public TextLabelBatch(Font font) {
+        super("TextLabelBatch");
+        atlas = GlyphAtlas.get(font);
+
+        setRenderState(textureState);
+
+        BlendState blend = new BlendState();
+        blend.setBlendEnabled(true);
+        setRenderState(blend);
+
+        getSceneHints().setRenderBucketType(RenderBucketType.Transparent);
+        getSceneHints().setTransparencyType(TransparencyType.TwoPass);
+        getSceneHints().setLightCombineMode(LightCombineMode.Off);
+        // the vertices are placed in world coordinates while drawing
+        getSceneHints().setCullHint(CullHint.Never);
+    }
+
+    public synchronized void addLabel(Label label) {
+        labels.add(label);
+        layoutChanged = true;
+    }
+
+    public synchronized void addLabels(Collection<Label> labels) {
+        this.labels.addAll(labels);
+        layoutChanged = true;
+    }
+
+    public synchronized void clearLabels() {
+        labels.clear();
+        layoutChanged = true;
+    }
+
+    public synchronized int getLabelCount() {
+        return labels.size();
+    }
+
+    /**
+     * Creates the quads, texture coordinates and colors of all glyphs.
+     */
+    private void layout() {
+        List<GlyphAtlas.Glyph> glyphs = new ArrayList<>();
+        List<Integer> glyphLabels = new ArrayList<>();
+        List<Integer> glyphX = new ArrayList<>();
+        for (int ii = 0; ii < labels.size(); ii++) {
+            String text = labels.get(ii).getText();
+            int x = 0;
+            for (int jj = 0; jj < text.length(); jj++) {
+                GlyphAtlas.Glyph glyph = atlas.getGlyph(text.charAt(jj));
+                if (glyph == null) {
+                    continue;
+                }
+                glyphs.add(glyph);
+                glyphLabels.add(ii);
+                glyphX.add(x + glyph.left);
+                x += glyph.advance;
+            }
+        }
+
+        final int glyphCount = glyphs.size();
+        vertexLabels = new int[4 * glyphCount];
+        vertexOffsets = new float[8 * glyphCount];
+        final FloatBuffer vertices = BufferUtils.createVector3Buffer(4 * glyphCount);
+        final FloatBuffer texCoords = BufferUtils.createVector2Buffer(4 * glyphCount);
+        final FloatBuffer colors = BufferUtils.createColorBuffer(4 * glyphCount);
+        final IndexBufferData<?> indices = BufferUtils.createIndexBufferData(6 * glyphCount, Math.max(4 * glyphCount - 1, 0));
+
+        for (int ii = 0; ii < glyphCount; ii++) {
+            GlyphAtlas.Glyph glyph = glyphs.get(ii);
+            int label = glyphLabels.get(ii);
+            float l = glyphX.get(ii);
+            float r = l + glyph.width;
+            float t = 0;
+            float b = -glyph.height;
+
+            // left top, left bottom, right bottom, right top
+            float[] offsets = {l, t, l, b, r, b, r, t};
+            System.arraycopy(offsets, 0, vertexOffsets, 8 * ii, 8);
+            for (int jj = 0; jj < 4; jj++) {
+                vertexLabels[4 * ii + jj] = label;
+            }
+            texCoords.put(glyph.s0).put(glyph.t0);
+            texCoords.put(glyph.s0).put(glyph.t1);
+            texCoords.put(glyph.s1).put(glyph.t1);
+            texCoords.put(glyph.s1).put(glyph.t0);
+
+            ReadOnlyColorRGBA color = labels.get(label).getColor();
+            for (int jj = 0; jj < 4; jj++) {
+                colors.put(color.getRed()).put(color.getGreen()).put(color.getBlue()).put(color.getAlpha());
+            }
+
+            int first = 4 * ii;
+            indices.put(first).put(first + 1).put(first + 2);
+            indices.put(first).put(first + 2).put(first + 3);
+        }
+        texCoords.rewind();
+        colors.rewind();
+        indices.getBuffer().rewind();
+
+        getMeshData().setVertexBuffer(vertices);
+        getMeshData().setTextureBuffer(texCoords, 0);
+        getMeshData().setColorBuffer(colors);
+        getMeshData().setIndices(indices);
+        layoutChanged = false;
+    }
+
+    @Override
+    public synchronized void draw(final Renderer r) {
+        if (layoutChanged) {
+            layout();
+        }
+        if (vertexLabels.length == 0) {
+            return;
+        }
+        final Texture texture = atlas.getTexture();
+        if (textureState.getTexture() != texture) {
+            textureState.setTexture(texture);
+        }
+
+        final Camera cam = Camera.getCurrentCamera();
+        _right.set(cam.getLeft()).negateLocal();
+        final ReadOnlyVector3 up = cam.getUp();
+        // world units per pixel of a parallel projection
+        final double parallelScale = (cam.getFrustumTop() - cam.getFrustumBottom()) / cam.getHeight();
+
+        updateWorldTransform(false);
+        final FloatBuffer vertices = getMeshData().getVertexBuffer();
+        vertices.clear();
+        int label = -1;
+        double scale = parallelScale;
+        for (int ii = 0; ii < vertexLabels.length; ii++) {
+            if (vertexLabels[ii] != label) {
+                label = vertexLabels[ii];
+                _worldTransform.applyForward(labels.get(label).getPosition(), _position);
+                if (cam.getProjectionMode() != ProjectionMode.Parallel) {
+                    _look.set(_position).subtractLocal(cam.getLocation());
+                    scale = cam.getDirection().dot(_look) * parallelScale / cam.getFrustumNear();
+                }
+            }
+            double x = vertexOffsets[2 * ii] * scale;
+            double y = vertexOffsets[2 * ii + 1] * scale;
+            vertices.put((float) (_position.getX() + _right.getX() * x + up.getX() * y));
+            vertices.put((float) (_position.getY() + _right.getY() * x + up.getY() * y));
+            vertices.put((float) (_position.getZ() + _right.getZ() * x + up.getZ() * y));
+        }
+        vertices.rewind();
+        getMeshData().getVertexCoords().setNeedsRefresh(true);
+        _worldTransform.setIdentity();
+
+        super.draw(r);
+    }
+
+    /**
+     * Text at a position with a color.
+     */
+    public static class Label {
+
+        private final ReadOnlyVector3 position;
+        private final String text;
+        private final ReadOnlyColorRGBA color;
+
+        public Label(ReadOnlyVector3 position, String text) {
+            this(position, text, ColorRGBA.BLACK);
+        }
+
+        public Label(ReadOnlyVector3 position, String text, ReadOnlyColorRGBA color) {
+            this.position = new Vector3(position);
+            this.text = text;
+            this.color = new ColorRGBA(color);
+        }
+
+        public ReadOnlyVector3 getPosition() {
+            return position;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public ReadOnlyColorRGBA getColor() {
+            return color;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.ardor3d;
+
+import com.ardor3d.image.Image;
+import com.ardor3d.image.Texture;
+import com.ardor3d.image.util.ImageUtils;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.RenderContext;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.util.TextureKey;
+import com.ardor3d.util.TextureManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the textures owned by backgrounds and labels. Every owner
+ * acquires a texture and releases it as soon as it is replaced or disposed.
+ * When the last owner has released a texture, its ids are queued per GL
+ * context and deleted by the next call of {@link #deleteReleased(Renderer)}
+ * in that context, instead of waiting for the garbage collector.
+ *
+ * The number and the estimated size of the owned textures show whether
+ * textures leak.
+ *
+ * @author Andreas Hauffe
+ */
+public final class TextureTracker {
+
+    private static final Map<Texture, Owners> OWNERS = new IdentityHashMap<>();
+    private static final Map<Object, List<Integer>> RELEASED_IDS = new HashMap<>();
+    private static long liveBytes = 0;
+
+    private TextureTracker() {
+    }
+
+    /**
+     * Registers an owner of the texture.
+     *
+     * @param texture the texture, may be null
+     * @return the texture
+     */
+    public static synchronized Texture acquire(Texture texture) {
+        if (texture == null) {
+            return null;
+        }
+        Owners owners = OWNERS.get(texture);
+        if (owners == null) {
+            // the size at the first acquire, the image may be rescaled on upload
+            owners = new Owners(getByteCount(texture));
+            OWNERS.put(texture, owners);
+            liveBytes += owners.bytes;
+        }
+        owners.count++;
+        return texture;
+    }
+
+    /**
+     * Unregisters an owner of the texture. If it was the last owner, the
+     * texture is removed from the TextureManager cache and queued for
+     * deletion in all contexts it has been uploaded to. The texture must not
+     * be drawn afterwards.
+     *
+     * @param texture the texture, may be null
+     */
+    public static synchronized void release(Texture texture) {
+        Owners owners = texture == null ? null : OWNERS.get(texture);
+        if (owners == null) {
+            return;
+        }
+        if (--owners.count > 0) {
+            return;
+        }
+        OWNERS.remove(texture);
+        liveBytes -= owners.bytes;
+
+        final TextureKey key = texture.getTextureKey();
+        if (key == null) {
+            return;
+        }
+        TextureManager.removeFromCache(key);
+        if (key.getContextObjects() == null) {
+            // only known with ardor3d.useMultipleContexts, as set by View3D
+            return;
+        }
+        for (Object context : new ArrayList<>(key.getContextObjects())) {
+            int id = key.getTextureIdForContext(context);
+            if (id != 0) {
+                RELEASED_IDS.computeIfAbsent(context, c -> new ArrayList<>()).add(id);
+            }
+            key.removeFromIdCache(context);
+        }
+    }
+
+    /**
+     * Deletes the released textures of the current context. Has to be called
+     * with the GL context being current, e.g. at the start of
+     * {@link com.ardor3d.framework.Scene#renderUnto}.
+     *
+     * @param renderer the renderer of the current context
+     */
+    public static void deleteReleased(Renderer renderer) {
+        final RenderContext context = ContextManager.getCurrentContext();
+        if (context == null) {
+            return;
+        }
+        List<Integer> ids;
+        synchronized (TextureTracker.class) {
+            if (RELEASED_IDS.isEmpty()) {
+                return;
+            }
+            ids = RELEASED_IDS.remove(context.getGlContextRep());
+        }
+        if (ids != null) {
+            renderer.deleteTextureIds(ids);
+        }
+    }
+
+    /**
+     * Forgets the texture ids of a context which is destroyed, because the
+     * textures are deleted together with the context.
+     *
+     * @param glContextRep the GL context, see
+     * {@link RenderContext#getGlContextRep()}
+     */
+    public static synchronized void contextDestroyed(Object glContextRep) {
+        RELEASED_IDS.remove(glContextRep);
+        for (Texture texture : OWNERS.keySet()) {
+            if (texture.getTextureKey() != null) {
+                texture.getTextureKey().removeFromIdCache(glContextRep);
+            }
+        }
+    }
+
+    /**
+     * @return number of textures with at least one owner
+     */
+    public static synchronized int getLiveTextureCount() {
+        return OWNERS.size();
+    }
+
+    /**
+     * @return estimated size in bytes of the textures with at least one owner
+     * including their mipmaps
+     */
+    public static synchronized long getLiveTextureBytes() {
+        return liveBytes;
+    }
+
+    private static long getByteCount(Texture texture) {
+        final Image image = texture.getImage();
+        if (image == null || image.getDataFormat() == null || image.getDataType() == null) {
+            return 0;
+        }
+        long bytes = (long) image.getWidth() * image.getHeight()
+                * ImageUtils.getPixelByteSize(image.getDataFormat(), image.getDataType());
+        if (texture.getMinificationFilter().usesMipMapLevels()) {
+            // the mipmaps add a third
+            bytes += bytes / 3;
+        }
+        return bytes;
+    }
+
+    private static final class Owners {
+
+        private final long bytes;
+        private int count = 0;
+
+        private Owners(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
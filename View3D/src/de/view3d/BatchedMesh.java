@@ -0,0 +1,120 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d;
+
+import com.ardor3d.scenegraph.Mesh;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mesh which merges the buffers of several source meshes with compatible
+ * render states into one draw call. The source meshes are kept so that a
+ * vertex or primitive of the batch can be mapped back to the mesh it was
+ * taken from.
+ *
+ * @author Andreas Hauffe
+ */
+public class BatchedMesh extends Mesh {
+
+    private final List<Mesh> sources;
+    private final int[] vertexStart;
+    private final int[] primitiveStart;
+
+    /**
+     * Creates a new batch.
+     *
+     * @param name name of the batch
+     * @param sources source meshes in the order of their data in the batch
+     * @param vertexStart index of the first vertex of each source mesh
+     * @param primitiveStart index of the first primitive of each source mesh
+     */
+    public BatchedMesh(String name, List<Mesh> sources, int[] vertexStart, int[] primitiveStart) {
+        super(name);
+        this.sources = Collections.unmodifiableList(sources);
+        this.vertexStart = vertexStart;
+        this.primitiveStart = primitiveStart;
+    }
+
+    public List<Mesh> getSourceMeshes() {
+        return sources;
+    }
+
+    /**
+     * Returns the source mesh the given vertex of this batch belongs to.
+     *
+     * @param vertexIndex index of the vertex in this batch
+     * @return the source mesh
+     */
+    public Mesh getSourceMeshForVertex(int vertexIndex) {
+        return sources.get(find(vertexStart, vertexIndex));
+    }
+
+    /**
+     * Returns the index of the given vertex of this batch inside its source
+     * mesh, see {@link #getSourceMeshForVertex(int)}.
+     *
+     * @param vertexIndex index of the vertex in this batch
+     * @return the index of the vertex in the source mesh
+     */
+    public int getSourceVertex(int vertexIndex) {
+        return vertexIndex - vertexStart[find(vertexStart, vertexIndex)];
+    }
+
+    /**
+     * Returns the source mesh the given primitive of this batch belongs to.
+     *
+     * @param primitiveIndex index of the primitive in this batch
+     * @return the source mesh
+     */
+    public Mesh getSourceMeshForPrimitive(int primitiveIndex) {
+        return sources.get(find(primitiveStart, primitiveIndex));
+    }
+
+    /**
+     * Returns the index of the first vertex of the given source mesh inside
+     * this batch or -1, if the mesh is not part of the batch.
+     *
+     * @param source source mesh
+     * @return the first vertex index
+     */
+    public int getVertexOffset(Mesh source) {
+        int index = sources.indexOf(source);
+        return index < 0 ? -1 : vertexStart[index];
+    }
+
+    private static int find(int[] starts, int index) {
+        int pos = Arrays.binarySearch(starts, index);
+        if (pos < 0) {
+            pos = -pos - 2;
+        }
+        // empty source meshes share their start with the following mesh
+        while (pos < starts.length - 1 && starts[pos + 1] == index) {
+            pos++;
+        }
+        return Math.max(pos, 0);
+    }
+}
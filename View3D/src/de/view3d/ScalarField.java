@@ -0,0 +1,48 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d;
+
+import com.ardor3d.scenegraph.Mesh;
+
+/**
+ * Scalar value at the vertices of the meshes of a model, e.g. the result
+ * which is shown by the colors of the meshes. Used for the export of the
+ * model.
+ *
+ * @author Andreas Hauffe
+ */
+@FunctionalInterface
+public interface ScalarField {
+
+    /**
+     * Returns the value at the given vertex of the mesh.
+     *
+     * @param mesh the mesh as passed to the view, never a batch of meshes
+     * @param vertex index of the vertex in the mesh
+     * @return the value
+     */
+    float getValue(Mesh mesh, int vertex);
+}
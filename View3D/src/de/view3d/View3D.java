@@ -30,6 +30,8 @@ import com.ardor3d.GradientBackground;
 import com.ardor3d.ImageBackground;
 import com.ardor3d.MouseControl;
 import com.ardor3d.ScreenShotImageExporter2;
+import com.ardor3d.TextLabelBatch;
+import com.ardor3d.TextureTracker;
 import com.ardor3d.bounding.BoundingBox;
 import com.ardor3d.framework.DisplaySettings;
 import com.ardor3d.framework.FrameHandler;
@@ -52,14 +54,14 @@ import com.ardor3d.math.Ray3;
 import com.ardor3d.math.Transform;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.math.type.ReadOnlyColorRGBA;
-import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.renderer.Camera;
 import com.ardor3d.renderer.Camera.ProjectionMode;
 import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.queue.RenderBucket;
 import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.queue.RenderQueue;
 import com.ardor3d.renderer.state.BlendState;
 import com.ardor3d.renderer.state.LightState;
-import com.ardor3d.renderer.state.WireframeState;
 import com.ardor3d.renderer.state.ZBufferState;
 import com.ardor3d.scenegraph.Line;
 import com.ardor3d.scenegraph.Mesh;
@@ -67,32 +69,72 @@ import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.Node;
 import com.ardor3d.scenegraph.Point;
 import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.scenegraph.hint.CullHint;
 import com.ardor3d.scenegraph.hint.LightCombineMode;
 import com.ardor3d.scenegraph.hint.TransparencyType;
 import com.ardor3d.util.ContextGarbageCollector;
 import com.ardor3d.util.ReadOnlyTimer;
 import com.ardor3d.util.Timer;
 import com.ardor3d.util.screen.ScreenExporter;
+import de.view3d.utilities.BackgroundImageCache;
 import de.view3d.utilities.CoordinateSystem;
+import de.view3d.utilities.EdgeExtractor;
+import de.view3d.utilities.FrameCapture;
+import de.view3d.utilities.FrameMetrics;
+import de.view3d.utilities.FramePacer;
+import de.view3d.utilities.LegacyVtkWriter;
+import de.view3d.utilities.MeshBatcher;
+import de.view3d.utilities.MeshLodNode;
+import de.view3d.utilities.ParallelBounds;
+import de.view3d.utilities.SceneOctree;
+import de.view3d.utilities.TiledRenderer;
+import de.view3d.utilities.VtkReader;
+import de.view3d.utilities.VtuWriter;
 import de.view3d.utilities.MultiBorderLayout;
+import de.view3d.utilities.OffscreenRenderer;
+import de.view3d.utilities.OnePassTransparentRenderBucket;
+import de.view3d.utilities.RenderScheduler;
 import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Insets;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.AttributedString;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import javax.swing.AbstractButton;
 import javax.swing.JButton;
 import javax.swing.JPanel;
@@ -103,19 +145,20 @@ import org.openide.filesystems.FileChooserBuilder;
 import org.openide.util.Exceptions;
 import org.openide.util.ImageUtilities;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 
 /**
  *
  * @author Andreas Hauffe
  */
-public class View3D extends JPanel implements Scene, Updater, Runnable {
+public class View3D extends JPanel implements Scene, Updater {
 
     private JoglSwingCanvas canvas;
     private AwtMouseManager mouseManager;
     private PhysicalLayer pl;
     private LogicalLayer logicalLayer;
     private Timer timer;
-    private FrameHandler frameWork;
+    private volatile FrameHandler frameWork;
 
     //private final JoglAwtCanvas canvas;
     private volatile boolean exit = false;
@@ -124,19 +167,25 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     private final Node root;
     private final Node objRoot;
     private final Node objTrans;
-    private final Node geometryRoot;
+    private volatile Node geometryRoot;
     private final Node addGeometryRoot;
     private final Node wireframeRoot;
+    private final Node labelRoot;
+    private final TextLabelBatch valueLabels;
 
     private Background background;
 
     private boolean wireframeAllowed = true;
     private boolean showWireframe = true;
 
-    private final WireframeState ws = new WireframeState();
-
     private BoundingBox bounds;
 
+    private final LinkedHashMap<Object, KeyedShape> keyedShapes = new LinkedHashMap<>();
+    private double[] shapeExtent;
+
+    private final Map<Mesh, Line> wireframes = new ConcurrentHashMap<>();
+    private double[] modelExtent;
+
     private CoordinateSystem coordSys;
 
     private boolean backgroundImageAllowed = false;
@@ -146,17 +195,102 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     private final int paddingLegendLeft = 10;
     private Vector3 origScaleVec;
     private Vector3 actScaleVec = new Vector3(1.0, 1.0, 1.0);
-    
-    Thread myThread;
 
     private boolean firstInit = true;
 
-    private static int threadInitNumber;
+    private static int viewInitNumber;
+    private String viewName;
+    private volatile boolean showing = false;
 
     private boolean inheritNetTransparency = false;
 
-    private volatile boolean update = true;
-    
+    private boolean batchingEnabled = false;
+
+    private boolean lodEnabled = false;
+
+    private boolean octreeEnabled = false;
+
+    private boolean progressiveRendering = false;
+
+    // reduced detail while the user rotates, zooms or pans the view
+    private static final int INTERACTION_IDLE_MILLIS = 300;
+    private volatile boolean interacting = false;
+    private final RequestProcessor.Task interactionEnd;
+
+    // a burst of resize events is applied once at the start of the next
+    // frame, the background is stretched until the burst has settled
+    private static final int RESIZE_SETTLE_MILLIS = 150;
+    private final AtomicBoolean resizeRequested = new AtomicBoolean(false);
+    private final RequestProcessor.Task resizeEnd;
+    private final RenderBucket onePassTransparentBucket = new OnePassTransparentRenderBucket();
+    private RenderBucket transparentBucket;
+
+    // scene changes are prepared by the builder and applied by the render thread
+    private final RequestProcessor sceneBuilder = new RequestProcessor("View3D scene builder", 1);
+    private final ConcurrentLinkedQueue<Runnable> sceneTasks = new ConcurrentLinkedQueue<>();
+    // set before the render thread touches the scene, guarded by sceneTasks
+    private boolean renderThreadOwnsScene = false;
+
+    // frames are only rendered on request, unless rendering is continuous
+    private final AtomicBoolean renderRequested = new AtomicBoolean(true);
+    private volatile boolean continuousRendering = false;
+    private final FramePacer framePacer = new FramePacer(View3DProperties.getDefault().getTargetFrameRate());
+    private final FrameMetrics frameMetrics = new FrameMetrics(framePacer.getPeriodNanos());
+    private final PropertyChangeListener propertyListener = (PropertyChangeEvent evt) -> {
+        if (View3DProperties.PROP_TARGETFRAMERATE.equals(evt.getPropertyName())) {
+            framePacer.setTargetFrameRate(View3DProperties.getDefault().getTargetFrameRate());
+            frameMetrics.setFrameBudgetNanos(framePacer.getPeriodNanos());
+        }
+        requestRender();
+    };
+
+    // the frames of all views are rendered by the shared render scheduler
+    private final RenderScheduler.Client renderClient = new RenderScheduler.Client() {
+        @Override
+        public void init() {
+            FrameHandler handler = frameWork;
+            if (handler == null) {
+                return;
+            }
+            handler.init();
+            frameMetrics.register(viewName);
+        }
+
+        @Override
+        public boolean isFrameRequested() {
+            return !exit && (continuousRendering || renderRequested.get());
+        }
+
+        @Override
+        public boolean isVisible() {
+            return showing;
+        }
+
+        @Override
+        public FramePacer getFramePacer() {
+            return framePacer;
+        }
+
+        @Override
+        public void renderFrame() {
+            FrameHandler handler = frameWork;
+            if (exit || handler == null) {
+                return;
+            }
+            renderRequested.set(false);
+            long frameStart = System.nanoTime();
+            frameMetrics.frameStarted();
+            handler.updateFrame();
+            frameMetrics.frameFinished(viewName, System.nanoTime() - frameStart);
+        }
+
+        @Override
+        public void dispose() {
+            frameMetrics.unregister();
+            setRenderThreadOwnsScene(false);
+        }
+    };
+
     private volatile boolean active = true;
 
     public View3D() {
@@ -184,6 +318,11 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
         this.geometryRoot = new Node("GeometryRootNode");
         this.addGeometryRoot = new Node("additionalGeometryRootNode");
         this.wireframeRoot = new Node("WireframeRootNode");
+        this.labelRoot = new Node("LabelRootNode");
+        this.valueLabels = new TextLabelBatch(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+        labelRoot.attachChild(valueLabels);
+        this.interactionEnd = sceneBuilder.create(() -> runOnRenderThread(this::endInteraction));
+        this.resizeEnd = sceneBuilder.create(() -> runOnRenderThread(this::resizeBackground));
 
         coordSys = new CoordinateSystem(xLabel, yLabel, zLabel);
         coordSys.update();
@@ -193,6 +332,10 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
         addHierarchyListener(new HierarchyListener() {
             @Override
             public void hierarchyChanged(HierarchyEvent e) {
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                    showing = View3D.this.isShowing();
+                    requestRender();
+                }
 
                 if (addNotify
                         && (((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0)
@@ -201,15 +344,20 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
                         && View3D.this.isShowing()))) {
                     View3D.this.setSize(10, 10);
                     exit = false;
+                    disposeOffscreen();
                     initComponents();
-                    myThread = new Thread(View3D.this, "View3D+" + threadInitNumber++);
-                    myThread.start();
+                    renderRequested.set(true);
+                    viewName = "View3D+" + viewInitNumber++;
+                    // from now on the changes are applied at the start of a frame
+                    setRenderThreadOwnsScene(true);
+                    RenderScheduler.getDefault().add(renderClient);
+                    RenderScheduler.getDefault().setFocused(renderClient);
                     addNotify = false;
                 }
 
                 if (removeNotify && ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0)) {
                     exit = true;
-                    //myThread.stop();
+                    RenderScheduler.getDefault().remove(renderClient);
                     clear();
                     System.gc();
                     removeNotify = false;
@@ -222,6 +370,122 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
         this.inheritNetTransparency = inheritNetTransparency;
     }
 
+    public boolean isBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    /**
+     * Enables the merging of the meshes passed to
+     * {@link #setShape3D(java.util.List, double)} into a few large batches.
+     * The batches are {@link BatchedMesh}es, which map their vertices and
+     * primitives back to the original meshes. The setting is used by the next
+     * call of setShape3D.
+     *
+     * @param batchingEnabled true, if meshes should be batched
+     */
+    public void setBatchingEnabled(boolean batchingEnabled) {
+        this.batchingEnabled = batchingEnabled;
+    }
+
+    public boolean isLodEnabled() {
+        return lodEnabled;
+    }
+
+    /**
+     * Enables the level of detail stage. Every mesh passed to
+     * {@link #setShape3D(java.util.List, double)} is decimated into coarser
+     * levels and the drawn level is selected from the net quality of the
+     * {@link View3DProperties} and the size of the mesh on the screen. The
+     * setting is used by the next call of setShape3D.
+     *
+     * @param lodEnabled true, if decimated levels should be used
+     */
+    public void setLodEnabled(boolean lodEnabled) {
+        this.lodEnabled = lodEnabled;
+    }
+
+    public boolean isOctreeEnabled() {
+        return octreeEnabled;
+    }
+
+    /**
+     * Enables the spatial partitioning of the model. The meshes passed to
+     * {@link #setShape3D(java.util.List, double)} are grouped into an octree
+     * of nodes, so that whole regions outside of the view are culled at
+     * once. If batching is enabled too, the meshes of every octree leaf are
+     * batched separately. The setting is used by the next call of
+     * setShape3D.
+     *
+     * @param octreeEnabled true, if the model should be partitioned
+     */
+    public void setOctreeEnabled(boolean octreeEnabled) {
+        this.octreeEnabled = octreeEnabled;
+    }
+
+    public boolean isProgressiveRendering() {
+        return progressiveRendering;
+    }
+
+    /**
+     * Sets whether the view is drawn with reduced detail while it is rotated,
+     * zoomed or panned. During the interaction the net is hidden, transparent
+     * meshes are drawn in a single pass and level of detail nodes draw coarser
+     * levels. The full detail is restored, as soon as the mouse input is idle
+     * for a short time.
+     *
+     * @param progressiveRendering true, if the detail should be reduced during
+     * interaction
+     */
+    public void setProgressiveRendering(boolean progressiveRendering) {
+        this.progressiveRendering = progressiveRendering;
+        if (!progressiveRendering) {
+            enqueueSceneTask(this::endInteraction);
+        }
+    }
+
+    public boolean isContinuousRendering() {
+        return continuousRendering;
+    }
+
+    /**
+     * Switches between continuous rendering, e.g. for animations, and
+     * rendering on demand. On demand, a frame is only rendered after input,
+     * changes of the scene, resizes and property changes or after a call of
+     * {@link #requestRender()}. In between the view does not use the shared
+     * render thread.
+     *
+     * @param continuousRendering true, if frames should be rendered
+     * continuously
+     */
+    public void setContinuousRendering(boolean continuousRendering) {
+        this.continuousRendering = continuousRendering;
+        requestRender();
+    }
+
+    public boolean isFrameSkipping() {
+        return framePacer.isSkipping();
+    }
+
+    /**
+     * Sets whether frames, which could not be rendered in time, are skipped
+     * or caught up by rendering the following frames without waiting. The
+     * target frame rate is set by
+     * {@link View3DProperties#setTargetFrameRate(int)}.
+     *
+     * @param frameSkipping true, if late frames should be skipped
+     */
+    public void setFrameSkipping(boolean frameSkipping) {
+        framePacer.setSkipping(frameSkipping);
+    }
+
+    /**
+     * Requests the rendering of a new frame.
+     */
+    public void requestRender() {
+        renderRequested.set(true);
+        RenderScheduler.getDefault().wakeUp();
+    }
+
     public void addAdditionalButtonBar(JToolBar toolBar) {
         toolBar.setOrientation(JToolBar.VERTICAL);
         add(toolBar, BorderLayout.WEST);
@@ -245,6 +509,7 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
 
     public void setHUDImage(BufferedImage image) {
         hud = image;
+        requestRender();
     }
 
     public boolean isShowHud() {
@@ -254,6 +519,7 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     public void setShowHud(boolean showHud) {
         this.showHud = showHud;
         repaint();
+        requestRender();
     }
 
     private boolean removeNotify = false;
@@ -298,10 +564,49 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
             @Override
             public void componentResized(ComponentEvent e) {
                 super.componentResized(e);
-                resizeCanvas();
+                resizeRequested.set(true);
+                resizeEnd.schedule(RESIZE_SETTLE_MILLIS);
+                requestRender();
+            }
+
+            @Override
+            public void componentShown(ComponentEvent e) {
+                requestRender();
             }
 
         });
+        // the input is processed by the logical layer in the next frame
+        MouseAdapter inputListener = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                RenderScheduler.getDefault().setFocused(renderClient);
+                requestRender();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                requestRender();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                requestRender();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                RenderScheduler.getDefault().setFocused(renderClient);
+                requestRender();
+            }
+        };
+        canvas.addMouseListener(inputListener);
+        canvas.addMouseMotionListener(inputListener);
+        canvas.addMouseWheelListener(inputListener);
+        View3DProperties.getDefault().addPropertyChangeListener(propertyListener);
+        if (background != null) {
+            root.detachChild(background);
+            background.dispose();
+        }
         background = new GradientBackground(canvas);
         ((GradientBackground) background).setColorButtom(View3DProperties.getDefault().getColor2());
         ((GradientBackground) background).setColorTop(View3DProperties.getDefault().getColor1());
@@ -327,11 +632,29 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
 
     public void addPoints(Collection<Vector3> points) {
         coordSys.addPoints(points);
+        requestRender();
     }
 
     public void setPoints(Collection<Vector3> points) {
         coordSys.clearPointCollection();
         coordSys.addPoints(points);
+        requestRender();
+    }
+
+    /**
+     * Sets the value labels of the model. The labels are given in model
+     * coordinates and scaled with the model. All labels are drawn with the
+     * glyphs of one shared texture in a single draw call, so hundreds of
+     * labels are possible.
+     *
+     * @param labels the labels, replacing the previous labels
+     */
+    public void setLabels(Collection<TextLabelBatch.Label> labels) {
+        final List<TextLabelBatch.Label> copy = new ArrayList<>(labels);
+        enqueueSceneTask(() -> {
+            valueLabels.clearLabels();
+            valueLabels.addLabels(copy);
+        });
     }
 
     private JToolBar getButtonBar() {
@@ -439,17 +762,58 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     @Override
     public boolean renderUnto(Renderer renderer) {
         ContextGarbageCollector.doRuntimeCleanup(renderer);
+        TextureTracker.deleteReleased(renderer);
 
-        background.renderUnto(renderer);
+        long start = System.nanoTime();
+        setOnePassTransparency(renderer, interacting);
+        // stretched over the view until the background has been resized
+        final Camera currentCam = Camera.getCurrentCamera();
+        background.renderUnto(renderer, currentCam.getWidth(), currentCam.getHeight(), 0, 0);
 
         objRoot.draw(renderer);
 
-        if (screenExportable != null) {
-            // force any waiting scene elements to be rendered.
+        final ImageRequest<ScreenShotImageExporter2> export = screenshot.getAndSet(null);
+        if (export != null) {
+            try {
+                // force any waiting scene elements to be rendered.
+                renderer.renderBuckets();
+                ScreenExporter.exportCurrentScreen(renderer, export.task);
+                export.task.getLastExport().whenComplete((file, ex) -> {
+                    if (ex != null) {
+                        export.result.completeExceptionally(ex);
+                    } else {
+                        export.result.complete(file);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                export.result.completeExceptionally(ex);
+            }
+        }
+        FrameCapture stoppedCapture;
+        while ((stoppedCapture = stoppedCaptures.poll()) != null) {
+            stoppedCapture.finish();
+        }
+        final FrameCapture capture = frameCapture;
+        if (capture != null) {
             renderer.renderBuckets();
-            ScreenExporter.exportCurrentScreen(renderer, screenExportable);
-            screenExportable = null;
+            final Camera cam = Camera.getCurrentCamera();
+            capture.capture(cam.getWidth(), cam.getHeight());
         }
+        final ImageRequest<TiledRenderer> tiled = tiledScreenshot.getAndSet(null);
+        if (tiled != null) {
+            renderer.renderBuckets();
+            final TiledRenderer tiles = tiled.task;
+            try {
+                tiles.render(renderer, Camera.getCurrentCamera(), (r, x, y) -> {
+                    background.renderUnto(r, tiles.getWidth(), tiles.getHeight(), x, y);
+                    objRoot.draw(r);
+                });
+                tiled.result.complete(tiles.getFile());
+            } catch (IOException | RuntimeException ex) {
+                tiled.result.completeExceptionally(ex);
+            }
+        }
+        frameMetrics.recordRender(System.nanoTime() - start);
         return true;
     }
 
@@ -459,8 +823,10 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     }
 
     private void scale() {
-        if (objRoot != null) {
-            update = false;
+        enqueueSceneTask(() -> {
+            if (bounds == null) {
+                return;
+            }
             objTrans.removeFromParent();
 
             Transform tempTrans = new Transform();
@@ -475,6 +841,7 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
             tempTrans.setScale(temp);
 
             geometryRoot.setTransform(tempTrans);
+            labelRoot.setTransform(tempTrans);
             if (wireframeAllowed) {
                 temp = new Vector3();
                 temp.setX(origScaleVec.getX() * actScaleVec.getX());
@@ -499,19 +866,252 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
             objTrans.attachChild(coordSys);
             objRoot.attachChild(objTrans);
             objRoot.updateGeometricState(0);
+        });
+    }
+
+    private final AtomicReference<ImageRequest<ScreenShotImageExporter2>> screenshot = new AtomicReference<>();
+
+    /**
+     * Saves an image of the view. The image is taken by the render thread
+     * with the next frame, the method returns when it is written. On the
+     * event dispatch thread, which draws the frame, events are dispatched
+     * while waiting.
+     *
+     * @param file image file
+     * @param fileFormat ImageIO format of the image, e.g. "png"
+     */
+    public void saveScreenshot(File file, String fileFormat) {
+        if (canvas == null) {
+            throw new IllegalStateException("View3D is not shown, use renderOffscreen instead.");
+        }
+        final ImageRequest<ScreenShotImageExporter2> request
+                = new ImageRequest<>(new ScreenShotImageExporter2(file, fileFormat, true));
+        final ImageRequest<ScreenShotImageExporter2> previous = screenshot.getAndSet(request);
+        if (previous != null) {
+            previous.result.cancel(false);
+        }
+        requestRender();
+        if (EventQueue.isDispatchThread()) {
+            final SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+            // posted, so the loop is not exited before it is entered
+            request.result.whenComplete((f, ex) -> EventQueue.invokeLater(loop::exit));
+            loop.enter();
+        }
+        try {
+            request.result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Exceptions.printStackTrace(ex);
+        } catch (CancellationException ex) {
+            // replaced by a newer screenshot or the view was closed
+        }
+    }
+
+    private volatile FrameCapture frameCapture = null;
+    private final ConcurrentLinkedQueue<FrameCapture> stoppedCaptures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Starts to save every rendered frame as image, e.g. to record a
+     * rotation. The pixels are read asynchronously and the images are
+     * encoded in the background. Only rendered frames are captured, so
+     * animations should use continuous rendering.
+     *
+     * @param directory directory of the images
+     * @param prefix prefix of the file names, which are followed by the
+     * frame number with five digits
+     * @param format ImageIO format of the images, e.g. "png"
+     */
+    public void startCapture(File directory, String prefix, String format) {
+        stopCapture();
+        frameCapture = new FrameCapture(directory, prefix, format);
+        requestRender();
+    }
 
-            update = true;
+    /**
+     * Stops the capture started by {@link #startCapture}. The remaining
+     * frames are written after the next frame.
+     */
+    public void stopCapture() {
+        final FrameCapture capture = frameCapture;
+        if (capture != null) {
+            frameCapture = null;
+            capture.stop();
+            stoppedCaptures.add(capture);
+            requestRender();
         }
+    }
 
+    public boolean isCapturing() {
+        return frameCapture != null;
+    }
+
+    /**
+     * Stops the capture and finishes the stopped captures before the context
+     * is destroyed, so their pending frames are written and their encoders
+     * are shut down. If the context cannot be made current, the frames still
+     * in the pixel buffers are dropped.
+     */
+    private void finishCaptures() {
+        final FrameCapture capture = frameCapture;
+        if (capture != null) {
+            frameCapture = null;
+            capture.stop();
+            stoppedCaptures.add(capture);
+        }
+        if (stoppedCaptures.isEmpty()) {
+            return;
+        }
+        final JoglCanvasRenderer renderer = canvas != null ? canvas.getCanvasRenderer() : null;
+        boolean current = false;
+        if (renderer != null && renderer.getRenderContext() != null) {
+            try {
+                renderer.makeCurrentContext();
+                current = true;
+            } catch (RuntimeException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+        try {
+            FrameCapture stopped;
+            while ((stopped = stoppedCaptures.poll()) != null) {
+                if (current) {
+                    stopped.finish();
+                } else {
+                    stopped.discard();
+                }
+            }
+        } finally {
+            if (current) {
+                renderer.releaseCurrentContext();
+            }
+        }
     }
 
-    private ScreenShotImageExporter2 screenExportable = null;
+    private final AtomicReference<ImageRequest<TiledRenderer>> tiledScreenshot = new AtomicReference<>();
 
-    public void saveScreenshot(File file, String fileFormat) {
-        // only works after the 2nd frame
-        frameWork.updateFrame();
-        screenExportable = new ScreenShotImageExporter2(file, fileFormat, true);
-        frameWork.updateFrame();
+    /**
+     * Saves a PNG image of the view with the given size, which may be much
+     * larger than the canvas. The scene is rendered tile by tile into an
+     * offscreen buffer and streamed into the file, so the memory does not
+     * depend on the height of the image. The vertical extent of the view is
+     * kept, the horizontal extent follows the aspect ratio of the image.
+     *
+     * The image is rendered by the render thread with the next frame. The
+     * returned future completes with the file once it is written or with the
+     * IOException of a failed write. As the frame is drawn on the event
+     * dispatch thread, the event dispatch thread must not wait for it.
+     *
+     * @param file PNG file
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @return the file, when it is written
+     */
+    public Future<File> saveTiledScreenshot(File file, int width, int height) {
+        if (canvas == null) {
+            throw new IllegalStateException("View3D is not shown, use renderOffscreen instead.");
+        }
+        final ImageRequest<TiledRenderer> request = new ImageRequest<>(new TiledRenderer(file, width, height));
+        final ImageRequest<TiledRenderer> previous = tiledScreenshot.getAndSet(request);
+        if (previous != null) {
+            previous.result.cancel(false);
+        }
+        requestRender();
+        return request.result;
+    }
+
+    private OffscreenRenderer offscreenRenderer = null;
+    private Component offscreenComponent = null;
+
+    /**
+     * Renders the view without any window into an image, e.g. for batch
+     * generated reports. The offscreen drawable and its GL context are
+     * created at the first call and reused by the following calls until
+     * {@link #disposeOffscreen()} is called. All scene changes made before
+     * the call are shown. The HUD image is drawn into the image if it is
+     * shown.
+     *
+     * The method can only be used while the view is not shown and has to be
+     * called always from the same thread. On Linux servers without graphics
+     * hardware Mesa's software rasterizer is used, e.g. with
+     * LIBGL_ALWAYS_SOFTWARE=1 and -Djava.awt.headless=true.
+     *
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @return the rendered image
+     */
+    public BufferedImage renderOffscreen(int width, int height) {
+        if (canvas != null) {
+            throw new IllegalStateException("View3D is shown on screen, use saveScreenshot instead.");
+        }
+        // the scene changes posted so far are handed over by the builder
+        sceneBuilder.post(() -> {
+        }).waitFinished();
+
+        if (offscreenRenderer == null) {
+            offscreenComponent = new JPanel();
+            if (background != null) {
+                root.detachChild(background);
+                background.dispose();
+            }
+            background = new GradientBackground(offscreenComponent);
+            ((GradientBackground) background).setColorButtom(View3DProperties.getDefault().getColor2());
+            ((GradientBackground) background).setColorTop(View3DProperties.getDefault().getColor1());
+            background.resize(width, height);
+
+            offscreenRenderer = new OffscreenRenderer(this, width, height);
+            resizeCamera(offscreenRenderer.getCamera(), width, height);
+            // from now on the changes are applied at the start of a frame
+            setRenderThreadOwnsScene(true);
+            init();
+        } else if (width != offscreenRenderer.getWidth() || height != offscreenRenderer.getHeight()) {
+            offscreenRenderer.setSize(width, height);
+            resizeCamera(offscreenRenderer.getCamera(), width, height);
+            background.resize(width, height);
+        }
+        runSceneTasks();
+        root.updateGeometricState(0, true);
+
+        BufferedImage image = offscreenRenderer.render();
+        if (hud != null && showHud) {
+            Graphics2D g = image.createGraphics();
+            g.drawImage(hud, paddingLegendLeft, paddingLegendTop, null);
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Releases the offscreen drawable and the GL context created by
+     * {@link #renderOffscreen(int, int)}.
+     */
+    public void disposeOffscreen() {
+        if (offscreenRenderer == null) {
+            return;
+        }
+        offscreenRenderer.dispose();
+        offscreenRenderer = null;
+        root.detachChild(background);
+        background.dispose();
+        offscreenComponent = null;
+        setRenderThreadOwnsScene(false);
+    }
+
+    /**
+     * @return the camera of the canvas or of the offscreen renderer
+     */
+    private Camera getCamera() {
+        if (canvas != null) {
+            return canvas.getCanvasRenderer().getCamera();
+        }
+        if (offscreenRenderer != null) {
+            return offscreenRenderer.getCamera();
+        }
+        return null;
+    }
+
+    private Component getBackgroundComponent() {
+        return canvas != null ? canvas : offscreenComponent;
     }
 
     @Override
@@ -542,9 +1142,11 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
 
         control = new MouseControl(objTrans);
         control.setupMouseTriggers(logicalLayer);
+        control.setInteractionListener(this::beginInteraction);
 
         objTrans.attachChild(coordSys);
         objTrans.attachChild(geometryRoot);
+        objTrans.attachChild(labelRoot);
         
         
         /*OffsetState ofState = new OffsetState();
@@ -556,9 +1158,6 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
         
         objRoot.attachChild(objTrans);
 
-        ws.setLineWidth(1.0f);
-        ws.setAntialiased(true);
-        wireframeRoot.setRenderState(ws);
         wireframeRoot.getSceneHints().setLightCombineMode(LightCombineMode.Off);
 
         root.attachChild(objRoot);
@@ -566,7 +1165,7 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
         root.updateGeometricState(0);
 
         if (firstInit) {
-            viewDiagonal();
+            setDiagonalView();
             firstInit = false;
         }
     }
@@ -577,21 +1176,131 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
 
     @Override
     public void update(ReadOnlyTimer rot) {
-        if (update) {
-            if (active){
-                logicalLayer.checkTriggers(rot.getTimePerFrame());
+        if (resizeRequested.getAndSet(false)) {
+            resizeCanvas();
+        }
+        runSceneTasks();
+        long start = System.nanoTime();
+        if (active){
+            logicalLayer.checkTriggers(rot.getTimePerFrame());
+        }
+        long triggered = System.nanoTime();
+        root.updateGeometricState(rot.getTimePerFrame(), true);
+        frameMetrics.recordTriggers(triggered - start);
+        frameMetrics.recordUpdate(System.nanoTime() - triggered);
+    }
+
+    private void beginInteraction() {
+        if (!progressiveRendering) {
+            return;
+        }
+        if (!interacting) {
+            interacting = true;
+            wireframeRoot.getSceneHints().setCullHint(CullHint.Always);
+            setReducedDetail(geometryRoot, true);
+        }
+        interactionEnd.schedule(INTERACTION_IDLE_MILLIS);
+    }
+
+    private void endInteraction() {
+        if (!interacting) {
+            return;
+        }
+        interacting = false;
+        wireframeRoot.getSceneHints().setCullHint(CullHint.Inherit);
+        setReducedDetail(geometryRoot, false);
+    }
+
+    private static void setReducedDetail(Spatial spatial, boolean reducedDetail) {
+        if (spatial instanceof MeshLodNode) {
+            ((MeshLodNode) spatial).setReducedDetail(reducedDetail);
+        } else if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                setReducedDetail(child, reducedDetail);
+            }
+        }
+    }
+
+    private void setOnePassTransparency(Renderer renderer, boolean onePass) {
+        RenderQueue queue = renderer.getQueue();
+        RenderBucket current = queue.getRenderBucket(RenderBucketType.Transparent);
+        if (onePass && current != onePassTransparentBucket) {
+            transparentBucket = current;
+            queue.setRenderBucket(RenderBucketType.Transparent, onePassTransparentBucket);
+        } else if (!onePass && current == onePassTransparentBucket) {
+            queue.setRenderBucket(RenderBucketType.Transparent, transparentBucket);
+        }
+    }
+
+    /**
+     * Posts a change of the scene graph to the scene builder. The builder
+     * hands it over to the render thread, so the change is applied at the
+     * next frame boundary and in the order of all other scene changes.
+     *
+     * @param task change of the scene graph
+     */
+    private void enqueueSceneTask(Runnable task) {
+        sceneBuilder.post(() -> runOnRenderThread(task));
+    }
+
+    private void runOnRenderThread(Runnable task) {
+        sceneTasks.add(task);
+        synchronized (sceneTasks) {
+            if (!renderThreadOwnsScene) {
+                // nobody renders, so the change can be applied right away
+                runSceneTasks();
+            }
+        }
+        requestRender();
+    }
+
+    /**
+     * Hands the scene over to the render thread or takes it back. The owner
+     * is set under the lock of the scene tasks, so a change applied by the
+     * builder is finished before the render thread starts and no change is
+     * applied by the builder while the render thread owns the scene. The
+     * changes left over are applied when the scene is taken back.
+     */
+    private void setRenderThreadOwnsScene(boolean owns) {
+        synchronized (sceneTasks) {
+            renderThreadOwnsScene = owns;
+            if (!owns) {
+                runSceneTasks();
+            }
+        }
+    }
+
+    private void runSceneTasks() {
+        synchronized (sceneTasks) {
+            Runnable task;
+            while ((task = sceneTasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
             }
-            root.updateGeometricState(rot.getTimePerFrame(), true);
         }
     }
 
     //private static void resizeCanvas(JoglAwtCanvas canvas) {
     private void resizeCanvas() {
-        int w = canvas.getSurfaceWidth();
-        int h = canvas.getSurfaceHeight();
+        final JoglSwingCanvas currentCanvas = canvas;
+        if (currentCanvas != null) {
+            resizeCamera(currentCanvas.getCanvasRenderer().getCamera(), currentCanvas.getSurfaceWidth(), currentCanvas.getSurfaceHeight());
+        }
+    }
+
+    private void resizeBackground() {
+        Camera cam = getCamera();
+        if (cam != null) {
+            background.resize(cam.getWidth(), cam.getHeight());
+        }
+    }
+
+    private static void resizeCamera(Camera cam, int w, int h) {
         double r = (double) w / (double) h;
 
-        Camera cam = canvas.getCanvasRenderer().getCamera();
         if (null != cam) {
             cam.setProjectionMode(ProjectionMode.Parallel);
             cam.resize(w, h);
@@ -602,122 +1311,381 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     }
 
     @Override
-    public void run() {
-        frameWork.init();
-        long start;
-        long end;
-        long sleep;
-        long waitTime = 30;
-        while (!exit) {
-            start = System.currentTimeMillis();
-            if (update) {
-                frameWork.updateFrame();
-            }
-            end = System.currentTimeMillis();
-            if (end - start < waitTime) {
-                sleep = waitTime - start + end;
+    public PickResults doPick(Ray3 ray3) {
+        return null;
+    }
+
+    /**
+     * Sets the meshes of the model. The new geometry, its bounds and its net
+     * are built on the scene builder thread, while the current model is still
+     * rendered. The finished geometry replaces the current one at the next
+     * frame boundary.
+     *
+     * @param shapes meshes of the model
+     * @param scale scale of the model
+     */
+    public void setShape3D(List<Mesh> shapes, double scale) {
+        final List<Mesh> meshes = new ArrayList<>(shapes);
+        final boolean batching = batchingEnabled;
+        final boolean lod = lodEnabled;
+        final boolean octree = octreeEnabled;
+        final boolean net = wireframeAllowed && showWireframe;
+        sceneBuilder.post(() -> {
+            // model bounds of all shapes and their union are computed in parallel
+            ParallelBounds meshBounds = ParallelBounds.compute(meshes);
+            double[] extent = toExtent(meshBounds);
+
+            Node geometry = new Node("GeometryRootNode");
+            List<Node> targets = new ArrayList<>();
+            List<Mesh> renderMeshes = new ArrayList<>();
+            if (octree) {
+                // meshes are batched per leaf, so that the batches stay spatially coherent
+                geometry.attachChild(SceneOctree.build(meshes, meshBounds.getModelBounds(), (leaf, leafMeshes) -> {
+                    for (Mesh shape : batching ? MeshBatcher.batch(leafMeshes, meshBounds.getModelBounds()) : leafMeshes) {
+                        targets.add(leaf);
+                        renderMeshes.add(shape);
+                    }
+                }));
             } else {
-                sleep = 10;
+                for (Mesh shape : batching ? MeshBatcher.batch(meshes, meshBounds.getModelBounds()) : meshes) {
+                    targets.add(geometry);
+                    renderMeshes.add(shape);
+                }
             }
-            try {
-                Thread.sleep(sleep);
-            } catch (InterruptedException ex) {
-                Exceptions.printStackTrace(ex);
+            // the meshes are decimated in parallel
+            List<List<Mesh>> lodLevels = lod
+                    ? renderMeshes.parallelStream().map(MeshLodNode::createLevels).collect(Collectors.toList())
+                    : null;
+
+            // meshes which are still part of the rendered graph are moved by the render thread
+            List<Runnable> attached = new ArrayList<>();
+            IdentityHashMap<Mesh, Line> edges = new IdentityHashMap<>();
+            for (int ii = 0; ii < renderMeshes.size(); ii++) {
+                Node target = targets.get(ii);
+                Mesh shape = renderMeshes.get(ii);
+                List<Mesh> levels = lod ? lodLevels.get(ii) : Collections.emptyList();
+                if (shape.getParent() == null) {
+                    target.attachChild(levels.isEmpty() ? shape : new MeshLodNode(shape, levels));
+                } else {
+                    attached.add(() -> target.attachChild(levels.isEmpty() ? shape : new MeshLodNode(shape, levels)));
+                }
+                if (net) {
+                    Line line = createEdgeLines(shape);
+                    if (line != null) {
+                        edges.put(shape, line);
+                    }
+                }
             }
-        }
-    }
+            Vector3 scaleVec = new Vector3(scale, scale, scale);
+            geometry.setScale(scaleVec);
 
-    @Override
-    public PickResults doPick(Ray3 ray3) {
-        return null;
+            runOnRenderThread(() -> swapGeometry(geometry, attached, meshBounds, scaleVec, edges));
+        });
     }
 
-    public synchronized void setShape3D(List<Mesh> shapes, double scale) {
-        update = false;
-
+    private void swapGeometry(Node geometry, List<Runnable> attached, ParallelBounds meshBounds, Vector3 scaleVec, Map<Mesh, Line> edges) {
+        // the meshes may still be part of the rendered graph
+        meshBounds.applyModelBounds();
         objTrans.detachChild(geometryRoot);
+        objTrans.detachChild(addGeometryRoot);
         objTrans.detachChild(coordSys);
         geometryRoot.detachAllChildren();
         wireframeRoot.detachAllChildren();
+        keyedShapes.clear();
+        wireframes.clear();
 
-        double xmin = 0.0;
-        double xmax = 0.0;
-        double ymin = 0.0;
-        double ymax = 0.0;
-        double zmin = 0.0;
-        double zmax = 0.0;
+        for (Runnable attach : attached) {
+            attach.run();
+        }
+        geometryRoot = geometry;
+        shapeExtent = toExtent(meshBounds);
 
-        if (!shapes.isEmpty()) {
-            xmin = Double.MAX_VALUE;
-            xmax = -Double.MAX_VALUE;
-            ymin = Double.MAX_VALUE;
-            ymax = -Double.MAX_VALUE;
-            zmin = Double.MAX_VALUE;
-            zmax = -Double.MAX_VALUE;
-            for (Mesh shape : shapes) {
-                geometryRoot.attachChild(shape);
-
-                if (wireframeAllowed && !(shape instanceof Line) && !(shape instanceof Point)) {
-                    Mesh copy = new Mesh();
-                    copy.setMeshData(shape.getMeshData());
-                    ReadOnlyColorRGBA c = shape.getDefaultColor();
-                    copy.setDefaultColor(ColorRGBA.BLACK);
-                    if (inheritNetTransparency) {
-                        setTransparent(copy, c.getAlpha());
-                    }
-                    wireframeRoot.attachChild(copy);
+        origScaleVec = scaleVec;
+        addGeometryRoot.setScale(origScaleVec);
+        wireframeRoot.setScale(origScaleVec);
+        labelRoot.setScale(geometryRoot.getScale());
 
-                    /*Mesh copy = new Mesh();
-                    copy.setMeshData(shape.getMeshData().makeCopy());*/
- /*Mesh copy = shape.makeCopy(false);*/
- /*copy.setSolidColor(ColorRGBA.BLACK);
-                    wireframeRoot.attachChild(copy);*/
+        updateBounds();
+
+        for (Map.Entry<Mesh, Line> entry : edges.entrySet()) {
+            wireframes.put(entry.getKey(), entry.getValue());
+            wireframeRoot.attachChild(entry.getValue());
+        }
+        if (wireframeAllowed && showWireframe) {
+            updateWireframe();
+            objTrans.attachChild(wireframeRoot);
+        }
+        objTrans.attachChild(geometryRoot);
+        objTrans.attachChild(addGeometryRoot);
+        objTrans.attachChild(coordSys);
+
+        root.updateGeometricState(0);
+    }
+
+    /**
+     * Adds the mesh under the given key or replaces the mesh which has been
+     * added with this key before. Only the given mesh is processed, the bounds
+     * and the wireframe of the rest of the model are updated incrementally.
+     * All keyed meshes are removed by
+     * {@link #setShape3D(java.util.List, double)}.
+     *
+     * @param key key of the mesh
+     * @param shape the new mesh
+     */
+    public void putShape3D(Object key, Mesh shape) {
+        final boolean net = wireframeAllowed && showWireframe;
+        sceneBuilder.post(() -> {
+            ParallelBounds meshBounds = ParallelBounds.compute(Collections.singletonList(shape));
+            double[] extent = toExtent(meshBounds);
+            Line edges = net ? createEdgeLines(shape) : null;
+            runOnRenderThread(() -> {
+                meshBounds.applyModelBounds();
+                if (origScaleVec == null) {
+                    origScaleVec = new Vector3(1.0, 1.0, 1.0);
                 }
 
-                shape.setModelBound(new BoundingBox());
-                BoundingBox box = (BoundingBox) shape.getModelBound();
-                ReadOnlyVector3 center = box.getCenter();
-                double temp = box.getXExtent();
-                xmax = Math.max(xmax, center.getX() + temp);
-                xmin = Math.min(xmin, center.getX() - temp);
+                KeyedShape old = keyedShapes.remove(key);
+                if (old != null) {
+                    detachKeyedShape(old);
+                }
+
+                KeyedShape keyed = new KeyedShape(shape, extent);
+                keyedShapes.put(key, keyed);
+                geometryRoot.attachChild(keyed.shape);
+                if (edges != null) {
+                    wireframes.put(keyed.shape, edges);
+                    wireframeRoot.attachChild(edges);
+                }
+                if (wireframeAllowed && showWireframe) {
+                    updateWireframe();
+                }
 
-                temp = box.getYExtent();
-                ymax = Math.max(ymax, center.getY() + temp);
-                ymin = Math.min(ymin, center.getY() - temp);
+                if ((old != null && touchesBoundary(old.extent)) || !insideBounds(keyed.extent)) {
+                    updateBounds();
+                }
+            });
+        });
+    }
 
-                temp = box.getZExtent();
-                zmax = Math.max(zmax, center.getZ() + temp);
-                zmin = Math.min(zmin, center.getZ() - temp);
+    /**
+     * Removes the mesh which has been added with the given key.
+     *
+     * @param key key of the mesh
+     */
+    public void removeShape3D(Object key) {
+        enqueueSceneTask(() -> {
+            KeyedShape old = keyedShapes.remove(key);
+            if (old == null) {
+                return;
+            }
+            detachKeyedShape(old);
+            if (touchesBoundary(old.extent)) {
+                updateBounds();
             }
+        });
+    }
+
+    private void detachKeyedShape(KeyedShape keyed) {
+        geometryRoot.detachChild(keyed.shape);
+        Line edges = wireframes.remove(keyed.shape);
+        if (edges != null) {
+            wireframeRoot.detachChild(edges);
+        }
+    }
+
+    /**
+     * Creates the missing edge lines of the meshes in the geometry root. The
+     * lines are only built while the net is shown.
+     */
+    private void updateWireframe() {
+        attachEdgeLines(createMissingEdgeLines(geometryRoot));
+    }
+
+    private Map<Mesh, Line> createMissingEdgeLines(Node geometry) {
+        IdentityHashMap<Mesh, Line> edges = new IdentityHashMap<>();
+        for (Mesh shape : getModelMeshes(geometry)) {
+            if (wireframes.containsKey(shape)) {
+                continue;
+            }
+            Line line = createEdgeLines(shape);
+            if (line != null) {
+                edges.put(shape, line);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Collects the meshes of the model below the given node. Octree nodes
+     * are traversed and of decimated meshes only the original is returned.
+     */
+    private static List<Mesh> getModelMeshes(Node node) {
+        List<Mesh> meshes = new ArrayList<>();
+        collectModelMeshes(node, meshes);
+        return meshes;
+    }
+
+    private static void collectModelMeshes(Node node, List<Mesh> meshes) {
+        // copy of the children, the geometry may be changed by the render thread
+        for (Spatial spat : new ArrayList<>(node.getChildren())) {
+            if (spat instanceof MeshLodNode) {
+                meshes.add(((MeshLodNode) spat).getMesh());
+            } else if (spat instanceof Mesh) {
+                meshes.add((Mesh) spat);
+            } else if (spat instanceof Node) {
+                collectModelMeshes((Node) spat, meshes);
+            }
+        }
+    }
+
+    private void attachEdgeLines(Map<Mesh, Line> edges) {
+        for (Map.Entry<Mesh, Line> entry : edges.entrySet()) {
+            // the mesh may have been removed while its lines were built
+            if (isModelMesh(entry.getKey())
+                    && wireframes.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                wireframeRoot.attachChild(entry.getValue());
+            }
+        }
+    }
+
+    private boolean isModelMesh(Mesh shape) {
+        Node parent = shape.getParent();
+        while (parent != null && parent != geometryRoot) {
+            parent = parent.getParent();
+        }
+        return parent != null;
+    }
+
+    private Line createEdgeLines(Mesh shape) {
+        if (shape instanceof Line || shape instanceof Point) {
+            return null;
+        }
+        Line edges = EdgeExtractor.createEdgeLines(shape);
+        if (edges == null) {
+            return null;
+        }
+        ReadOnlyColorRGBA c = shape.getDefaultColor();
+        edges.setDefaultColor(ColorRGBA.BLACK);
+        if (inheritNetTransparency) {
+            setTransparent(edges, c.getAlpha());
+        }
+        return edges;
+    }
+
+    private static double[] toExtent(ParallelBounds bounds) {
+        if (bounds.isEmpty()) {
+            return null;
+        }
+        return new double[]{bounds.getXmin(), bounds.getYmin(), bounds.getZmin(),
+            bounds.getXmax(), bounds.getYmax(), bounds.getZmax()};
+    }
+
+    private boolean insideBounds(double[] extent) {
+        if (extent == null) {
+            return true;
+        }
+        if (modelExtent == null) {
+            return false;
+        }
+        for (int ii = 0; ii < 3; ii++) {
+            if (extent[ii] < modelExtent[ii] || extent[ii + 3] > modelExtent[ii + 3]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean touchesBoundary(double[] extent) {
+        if (extent == null || modelExtent == null) {
+            return false;
+        }
+        for (int ii = 0; ii < 3; ii++) {
+            if (extent[ii] <= modelExtent[ii] || extent[ii + 3] >= modelExtent[ii + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recomputes the model extent from the cached extents of the shapes and
+     * updates the view bounds and the coordinate system.
+     */
+    private void updateBounds() {
+        modelExtent = shapeExtent != null ? shapeExtent.clone() : null;
+        for (KeyedShape keyed : keyedShapes.values()) {
+            if (keyed.extent == null) {
+                continue;
+            }
+            if (modelExtent == null) {
+                modelExtent = keyed.extent.clone();
+            } else {
+                for (int ii = 0; ii < 3; ii++) {
+                    modelExtent[ii] = Math.min(modelExtent[ii], keyed.extent[ii]);
+                    modelExtent[ii + 3] = Math.max(modelExtent[ii + 3], keyed.extent[ii + 3]);
+                }
+            }
+        }
+
+        double scale = origScaleVec.getX();
+        double xmin = 0.0;
+        double xmax = 0.0;
+        double ymin = 0.0;
+        double ymax = 0.0;
+        double zmin = 0.0;
+        double zmax = 0.0;
+        if (modelExtent != null) {
+            xmin = modelExtent[0] * scale;
+            ymin = modelExtent[1] * scale;
+            zmin = modelExtent[2] * scale;
+            xmax = modelExtent[3] * scale;
+            ymax = modelExtent[4] * scale;
+            zmax = modelExtent[5] * scale;
         }
-        origScaleVec = new Vector3(scale, scale, scale);
-        geometryRoot.setScale(origScaleVec);
-        addGeometryRoot.setScale(origScaleVec);
-        wireframeRoot.setScale(origScaleVec);
-        xmax *= scale;
-        xmin *= scale;
-        ymax *= scale;
-        ymin *= scale;
-        zmax *= scale;
-        zmin *= scale;
 
         Vector3 center = new Vector3((xmax + xmin) / 2.0, (ymax + ymin) / 2.0, (zmax + zmin) / 2.0);
         bounds = new BoundingBox(center, (xmax - xmin) / 2.0, (ymax - ymin) / 2.0, (zmax - zmin) / 2.0);
 
+        // the coordinate system follows the scale currently applied to the geometry
+        Transform tempTrans = new Transform();
+        tempTrans.setScale(geometryRoot.getScale().getX() / origScaleVec.getX(),
+                geometryRoot.getScale().getY() / origScaleVec.getY(),
+                geometryRoot.getScale().getZ() / origScaleVec.getZ());
+        BoundingBox bd = (BoundingBox) bounds.transform(tempTrans, null);
+
         //update CoordinateSystem
-        coordSys.getCoordinateBounds().setValues(xmin, ymin, zmin, xmax, ymax, zmax);
+        coordSys.getCoordinateBounds().setValues(
+                bd.getCenter().getX() - bd.getXExtent(),
+                bd.getCenter().getY() - bd.getYExtent(),
+                bd.getCenter().getZ() - bd.getZExtent(),
+                bd.getCenter().getX() + bd.getXExtent(),
+                bd.getCenter().getY() + bd.getYExtent(),
+                bd.getCenter().getZ() + bd.getZExtent());
         coordSys.update();
+    }
 
-        if (wireframeAllowed && showWireframe) {
-            objTrans.attachChild(wireframeRoot);
+    /**
+     * An image, which is taken by the render thread with the next frame.
+     */
+    private static class ImageRequest<T> {
+
+        private final T task;
+        private final CompletableFuture<File> result = new CompletableFuture<>();
+
+        private ImageRequest(T task) {
+            this.task = task;
         }
-        objTrans.attachChild(geometryRoot);
-        objTrans.attachChild(addGeometryRoot);
-        objTrans.attachChild(coordSys);
+    }
 
-        root.updateGeometricState(0);
+    private static class KeyedShape {
+
+        private final Mesh shape;
+        private final double[] extent;
 
-        update = true;
+        KeyedShape(Mesh shape, double[] extent) {
+            this.shape = shape;
+            this.extent = extent;
+        }
     }
 
     private void setTransparent(Mesh mesh, float trans) {
@@ -738,8 +1706,26 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     }
 
     private void clear() {
+        View3DProperties.getDefault().removePropertyChangeListener(propertyListener);
+        final ImageRequest<ScreenShotImageExporter2> export = screenshot.getAndSet(null);
+        if (export != null) {
+            export.result.cancel(false);
+        }
+        final ImageRequest<TiledRenderer> tiled = tiledScreenshot.getAndSet(null);
+        if (tiled != null) {
+            tiled.result.cancel(false);
+        }
+        finishCaptures();
+        coordSys.dispose();
+        if (background != null) {
+            background.dispose();
+        }
         if (canvas != null) {
             remove(canvas);
+            if (canvas.getCanvasRenderer().getRenderContext() != null) {
+                // the textures are deleted together with the context
+                TextureTracker.contextDestroyed(canvas.getCanvasRenderer().getRenderContext().getGlContextRep());
+            }
             canvas.destroy();
         }
         canvas = null;
@@ -758,12 +1744,15 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     }
 
     public void fitView() {
-        fit();
-        centerView();
+        enqueueSceneTask(() -> {
+            fit();
+            centerView();
+        });
     }
 
     private void fit() {
-        if (bounds == null) {
+        Camera cam = getCamera();
+        if (bounds == null || cam == null) {
             return;
         }
 
@@ -778,8 +1767,6 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
         int ymax = -Integer.MAX_VALUE;
         int ymin = Integer.MAX_VALUE;
 
-        Camera cam = canvas.getCanvasRenderer().getCamera();
-
         for (int ii = 0; ii < 8; ii++) {
             Vector3 point = cam.getScreenCoordinates(corners[ii]);
             xmax = Math.max(xmax, (int) Math.round(point.getX()));
@@ -788,8 +1775,8 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
             ymin = Math.min(ymin, (int) Math.round(point.getY()));
         }
 
-        double scalex = (xmax - xmin) / (double) canvas.getSurfaceWidth();
-        double scaley = (ymax - ymin) / (double) canvas.getSurfaceHeight();
+        double scalex = (xmax - xmin) / (double) cam.getWidth();
+        double scaley = (ymax - ymin) / (double) cam.getHeight();
 
         if (scalex == 0.0 && scaley == 0.0) {
             scalex = 1.0;
@@ -813,33 +1800,43 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     }
 
     public void viewXYPlane() {
-        Transform trans = new Transform();
-        objTrans.setTransform(trans);
-        fit();
-        centerView();
+        enqueueSceneTask(() -> {
+            Transform trans = new Transform();
+            objTrans.setTransform(trans);
+            fit();
+            centerView();
+        });
     }
 
     public void viewXZPlane() {
-        Transform trans = new Transform();
-        Matrix3 rotXMat = new Matrix3();
-        rotXMat.fromAngles(-Math.PI / 2.0, 0, 0);
-        trans.setRotation(rotXMat);
-        objTrans.setTransform(trans);
-        fit();
-        centerView();
+        enqueueSceneTask(() -> {
+            Transform trans = new Transform();
+            Matrix3 rotXMat = new Matrix3();
+            rotXMat.fromAngles(-Math.PI / 2.0, 0, 0);
+            trans.setRotation(rotXMat);
+            objTrans.setTransform(trans);
+            fit();
+            centerView();
+        });
     }
 
     public void viewYZPlane() {
-        Transform trans = new Transform();
-        Matrix3 rotMat = new Matrix3();
-        rotMat.fromAngles(-Math.PI / 2.0, -Math.PI / 2.0, 0);
-        trans.setRotation(rotMat);
-        objTrans.setTransform(trans);
-        fit();
-        centerView();
+        enqueueSceneTask(() -> {
+            Transform trans = new Transform();
+            Matrix3 rotMat = new Matrix3();
+            rotMat.fromAngles(-Math.PI / 2.0, -Math.PI / 2.0, 0);
+            trans.setRotation(rotMat);
+            objTrans.setTransform(trans);
+            fit();
+            centerView();
+        });
     }
 
     public void viewDiagonal() {
+        enqueueSceneTask(this::setDiagonalView);
+    }
+
+    private void setDiagonalView() {
         Matrix3 rotY = new Matrix3();
         rotY.fromAngles(0, -3.0 * Math.PI / 4.0, 0);
         Matrix3 rotX = new Matrix3();
@@ -859,47 +1856,128 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
 
     public void useNetForCriterion(boolean use) {
         showWireframe = use;
-        if (wireframeAllowed) {
-            if (use) {
-                objTrans.attachChild(wireframeRoot);
-            } else {
-                objTrans.detachChild(wireframeRoot);
-            }
-        }
-        root.updateGeometricState(0);
+        sceneBuilder.post(() -> {
+            // the missing lines are built by the scene builder
+            Map<Mesh, Line> edges = wireframeAllowed && use
+                    ? createMissingEdgeLines(geometryRoot) : Collections.emptyMap();
+            runOnRenderThread(() -> {
+                if (wireframeAllowed) {
+                    if (showWireframe) {
+                        attachEdgeLines(edges);
+                        updateWireframe();
+                        objTrans.attachChild(wireframeRoot);
+                    } else {
+                        objTrans.detachChild(wireframeRoot);
+                    }
+                }
+                root.updateGeometricState(0);
+            });
+        });
     }
 
     public void setBackgroundImage(File path) {
-        root.detachChild(background);
-        if (path == null) {
-            GradientBackground gbackground = new GradientBackground(canvas);
-            gbackground.setColorButtom(View3DProperties.getDefault().getColor2());
-            gbackground.setColorTop(View3DProperties.getDefault().getColor1());
-            background = gbackground;
-        } else {
-            background = new ImageBackground(canvas);
-            //((ImageBackground) background).setImage(ImageUtilities.loadImage("de/view3d/resources/HC_3.2-64_gesamt.jpg"));
-            try {
-                ((ImageBackground) background).setImage(ImageIO.read(path));
-            } catch (IOException ex) {
-                Exceptions.printStackTrace(ex);
+        sceneBuilder.post(() -> {
+            Background newBackground;
+            if (path == null) {
+                GradientBackground gbackground = new GradientBackground(getBackgroundComponent());
+                gbackground.setColorButtom(View3DProperties.getDefault().getColor2());
+                gbackground.setColorTop(View3DProperties.getDefault().getColor1());
+                newBackground = gbackground;
+            } else {
+                newBackground = new ImageBackground(getBackgroundComponent());
+                //((ImageBackground) background).setImage(ImageUtilities.loadImage("de/view3d/resources/HC_3.2-64_gesamt.jpg"));
+                try {
+                    // decoded by the scene builder, not by the caller
+                    BackgroundImageCache.setImage((ImageBackground) newBackground, path);
+                } catch (IOException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
             }
+            runOnRenderThread(() -> {
+                root.detachChild(background);
+                background.dispose();
+                background = newBackground;
+                resizeBackground();
+                root.attachChild(background);
+            });
+        });
+    }
+
+    /**
+     * Exports the quads of the model as binary legacy VTK file. The vertex
+     * data is streamed directly from the mesh buffers into the file.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void exportBinaryQuadArrays(File file) throws IOException {
+        LegacyVtkWriter.writeQuads(getModelMeshes(geometryRoot), file.toPath());
+    }
+
+    /**
+     * Exports the quads of the model with the colors of the vertices as
+     * compressed VTK XML unstructured grid (.vtu).
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void exportVtu(File file) throws IOException {
+        exportVtu(file, Collections.emptyMap());
+    }
+
+    /**
+     * Exports the quads of the model with the colors of the vertices and the
+     * given scalar fields as compressed VTK XML unstructured grid (.vtu). The
+     * data blocks are compressed in parallel.
+     *
+     * The fields are evaluated for the meshes passed to the view. Vertices of
+     * batched meshes are mapped back to their source mesh.
+     *
+     * @param file the file
+     * @param scalars scalar fields written as point data, the key is the name
+     * of the field
+     * @throws IOException if the file cannot be written
+     */
+    public void exportVtu(File file, Map<String, ScalarField> scalars) throws IOException {
+        Map<String, ScalarField> sourceScalars = new LinkedHashMap<>();
+        for (Map.Entry<String, ScalarField> entry : scalars.entrySet()) {
+            ScalarField field = entry.getValue();
+            sourceScalars.put(entry.getKey(), (mesh, vertex) -> {
+                if (mesh instanceof BatchedMesh) {
+                    BatchedMesh batch = (BatchedMesh) mesh;
+                    return field.getValue(batch.getSourceMeshForVertex(vertex), batch.getSourceVertex(vertex));
+                }
+                return field.getValue(mesh, vertex);
+            });
         }
-        root.attachChild(background);
+        VtuWriter.writeQuads(getModelMeshes(geometryRoot), sourceScalars, file.toPath());
+    }
+
+    /**
+     * Reads the quads and triangles of a binary legacy VTK or a VTU file, e.g.
+     * written by {@link #exportBinaryQuadArrays(java.io.File)} or
+     * {@link #exportVtu(java.io.File)}. The returned meshes can be passed to
+     * {@link #setShape3D(java.util.List, double)}.
+     *
+     * @param file the file
+     * @return the meshes
+     * @throws IOException if the file cannot be read or has an unsupported
+     * format
+     */
+    public static List<Mesh> readVtk(File file) throws IOException {
+        return VtkReader.read(file.toPath());
     }
 
     public void exportQuadArrays(FileWriter fw) throws IOException {
-        List<Spatial> e = geometryRoot.getChildren();
+        List<Mesh> e = getModelMeshes(geometryRoot);
         int nP = 0;
         ArrayList<float[]> quads = new ArrayList<>(10);
-        for (Spatial spat : e) {
-            if (spat instanceof Mesh) {
-                MeshData data = ((Mesh) spat).getMeshData();
-                float[] points = new float[data.getVertexCount() * 3];
-                data.getVertexBuffer().get(points);
-                quads.add(points);
-                nP += data.getVertexCount();
-            }
+        for (Mesh mesh : e) {
+            MeshData data = mesh.getMeshData();
+            float[] points = new float[data.getVertexCount() * 3];
+            data.getVertexBuffer().get(points);
+            quads.add(points);
+            nP += data.getVertexCount();
         }
 
         if (nP == 0) {
@@ -932,18 +2010,24 @@ public class View3D extends JPanel implements Scene, Updater, Runnable {
     HashMap<AdditionalGeometryButton, Spatial> geoMap = new HashMap<>();
 
     private void updateAdditionalGeometry() {
-        addGeometryRoot.removeFromParent();
-        addGeometryRoot.detachAllChildren();
+        List<Spatial> groups = new ArrayList<>();
         for (AdditionalGeometryButton button : geoMap.keySet()) {
             if (button.isSelected()) {
                 Spatial group = geoMap.get(button);
                 if (group != null) {
-                    addGeometryRoot.attachChild(group);
+                    groups.add(group);
                 }
             }
         }
-        objTrans.attachChild(addGeometryRoot);
-        root.updateGeometricState(0);
+        enqueueSceneTask(() -> {
+            addGeometryRoot.removeFromParent();
+            addGeometryRoot.detachAllChildren();
+            for (Spatial group : groups) {
+                addGeometryRoot.attachChild(group);
+            }
+            objTrans.attachChild(addGeometryRoot);
+            root.updateGeometricState(0);
+        });
     }
 
     public static class AdditionalGeometryButton extends JToggleButton {
@@ -42,6 +42,9 @@ public class View3DProperties {
     private double netQuality;
     public static final String PROP_NETQUALITY = "netQuality";
     
+    private int targetFrameRate;
+    public static final String PROP_TARGETFRAMERATE = "targetFrameRate";
+    
     private Color color1;
     public static final String PROP_COLOR1 = "color1";
 
@@ -57,6 +60,7 @@ public class View3DProperties {
     
     private void init(){
         netQuality = NbPreferences.forModule(View3DProperties.class).getDouble(PROP_NETQUALITY, 1.0);
+        targetFrameRate = NbPreferences.forModule(View3DProperties.class).getInt(PROP_TARGETFRAMERATE, 30);
         color1 = new Color(NbPreferences.forModule(View3DProperties.class).getInt(PROP_COLOR1, (new Color(255, 255, 255)).getRGB()));
         color2 = new Color(NbPreferences.forModule(View3DProperties.class).getInt(PROP_COLOR2, (new Color(204, 231, 255)).getRGB()));
     }
@@ -86,6 +90,27 @@ public class View3DProperties {
         propertyChangeSupport.firePropertyChange(PROP_NETQUALITY, oldNetQuality, netQuality);
     }
 
+    /**
+     * Get the value of targetFrameRate
+     *
+     * @return the value of targetFrameRate
+     */
+    public int getTargetFrameRate() {
+        return targetFrameRate;
+    }
+
+    /**
+     * Set the value of targetFrameRate
+     *
+     * @param targetFrameRate new value of targetFrameRate
+     */
+    public void setTargetFrameRate(int targetFrameRate) {
+        int oldTargetFrameRate = this.targetFrameRate;
+        this.targetFrameRate = targetFrameRate;
+        NbPreferences.forModule(View3DProperties.class).putInt(PROP_TARGETFRAMERATE, targetFrameRate);
+        propertyChangeSupport.firePropertyChange(PROP_TARGETFRAMERATE, oldTargetFrameRate, targetFrameRate);
+    }
+
     /**
      * Get the value of color1
      *
@@ -42,6 +42,7 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
         this.controller = controller;
         initComponents();
         qualitySlider.addChangeListener(this);
+        frameRateSpinner.addChangeListener(this);
         color1Label.setOpaque(true);
         color1Label.setBackground(View3DProperties.getDefault().getColor1());
         color2Label.setOpaque(true);
@@ -59,6 +60,8 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
         jPanel1 = new javax.swing.JPanel();
         qualitySlider = new javax.swing.JSlider();
         jLabel1 = new javax.swing.JLabel();
+        jLabel2 = new javax.swing.JLabel();
+        frameRateSpinner = new javax.swing.JSpinner();
         jPanel2 = new javax.swing.JPanel();
         jLabel3 = new javax.swing.JLabel();
         jLabel4 = new javax.swing.JLabel();
@@ -72,15 +75,23 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
 
         org.openide.awt.Mnemonics.setLocalizedText(jLabel1, org.openide.util.NbBundle.getMessage(View3DPropPanelPanel.class, "View3DPropPanelPanel.jLabel1.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(jLabel2, org.openide.util.NbBundle.getMessage(View3DPropPanelPanel.class, "View3DPropPanelPanel.jLabel2.text")); // NOI18N
+
+        frameRateSpinner.setModel(new javax.swing.SpinnerNumberModel(30, 5, 120, 5));
+
         javax.swing.GroupLayout jPanel1Layout = new javax.swing.GroupLayout(jPanel1);
         jPanel1.setLayout(jPanel1Layout);
         jPanel1Layout.setHorizontalGroup(
             jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(jPanel1Layout.createSequentialGroup()
                 .addContainerGap()
-                .addComponent(jLabel1)
+                .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jLabel1)
+                    .addComponent(jLabel2))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addComponent(qualitySlider, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(qualitySlider, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(frameRateSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         jPanel1Layout.setVerticalGroup(
@@ -90,6 +101,10 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
                 .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING)
                     .addComponent(qualitySlider, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(jLabel1))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel2)
+                    .addComponent(frameRateSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap(20, Short.MAX_VALUE))
         );
 
@@ -223,6 +238,7 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
     void load() {
         double actQuality = View3DProperties.getDefault().getNetQuality();
         qualitySlider.setValue((int) Math.round(100.0 / (maxQuality - minQuality) * (actQuality - minQuality)));
+        frameRateSpinner.setValue(View3DProperties.getDefault().getTargetFrameRate());
         color1Label.setOpaque(true);
         color1Label.setBackground(View3DProperties.getDefault().getColor1());
         color2Label.setOpaque(true);
@@ -232,6 +248,7 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
     void store() {
         double quality = (maxQuality - minQuality) / 100.0 * qualitySlider.getValue() + minQuality;
         View3DProperties.getDefault().setNetQuality(quality);
+        View3DProperties.getDefault().setTargetFrameRate((Integer) frameRateSpinner.getValue());
         View3DProperties.getDefault().setColor1(color1Label.getBackground());
         View3DProperties.getDefault().setColor2(color2Label.getBackground());
     }
@@ -243,7 +260,9 @@ final class View3DPropPanelPanel extends javax.swing.JPanel implements ChangeLis
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JLabel color1Label;
     private javax.swing.JLabel color2Label;
+    private javax.swing.JSpinner frameRateSpinner;
     private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel jLabel2;
     private javax.swing.JLabel jLabel3;
     private javax.swing.JLabel jLabel4;
     private javax.swing.JPanel jPanel1;
@@ -0,0 +1,161 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.ImageBackground;
+import com.ardor3d.TextureTracker;
+import com.ardor3d.image.Texture;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Cache of the textures of background images. An image is decoded only once
+ * per file and modification time. Large images are subsampled while decoding
+ * and then scaled down to at most {@link #MAX_IMAGE_SIZE} pixels, so a photo
+ * with many megapixels neither has to be decoded completely nor uploaded in
+ * full resolution. The least recently used textures are released if more
+ * than {@link #CACHE_SIZE} images are cached. The cache is an owner of its
+ * textures in terms of the {@link TextureTracker}, so a texture is deleted
+ * when it has been dropped from the cache and no background uses it.
+ *
+ * @author Andreas Hauffe
+ */
+public final class BackgroundImageCache {
+
+    public static final int MAX_IMAGE_SIZE = 2048;
+
+    public static final int CACHE_SIZE = 4;
+
+    private static final Map<File, Entry> CACHE = new LinkedHashMap<File, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Entry> eldest) {
+            if (size() > CACHE_SIZE) {
+                TextureTracker.release(eldest.getValue().texture);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private BackgroundImageCache() {
+    }
+
+    /**
+     * Sets the image of the file as texture of the background. The image is
+     * decoded if it is not cached or the file has been modified since. This
+     * method should not be called on the event dispatch thread.
+     *
+     * @param background the background
+     * @param file the image file
+     * @throws IOException if the file cannot be read
+     */
+    public static void setImage(ImageBackground background, File file) throws IOException {
+        final File key = file.getAbsoluteFile();
+        final long lastModified = key.lastModified();
+        Entry entry;
+        synchronized (CACHE) {
+            entry = CACHE.get(key);
+        }
+        if (entry == null || entry.lastModified != lastModified) {
+            BufferedImage image = read(key);
+            entry = new Entry(lastModified, TextureTracker.acquire(ImageBackground.createTexture(image)), image.getWidth(), image.getHeight());
+            synchronized (CACHE) {
+                Entry old = CACHE.put(key, entry);
+                if (old != null) {
+                    TextureTracker.release(old.texture);
+                }
+            }
+        }
+        background.setTexture(entry.texture, entry.width, entry.height);
+    }
+
+    /**
+     * Reads the image, subsampled to at most twice the maximum size, and
+     * scales it to the maximum size.
+     */
+    static BufferedImage read(File file) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            if (in == null) {
+                throw new IOException("Cannot open " + file);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unknown image format of " + file);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int size = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, size / MAX_IMAGE_SIZE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, MAX_IMAGE_SIZE / (double) Math.max(image.getWidth(), image.getHeight()));
+        if (scale == 1.0 && image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        // the format which is uploaded without another copy
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = scaled.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(image, 0, 0, width, height, null);
+        g2d.dispose();
+        return scaled;
+    }
+
+    private static final class Entry {
+
+        private final long lastModified;
+        private final Texture texture;
+        private final int width;
+        private final int height;
+
+        private Entry(long lastModified, Texture texture, int width, int height) {
+            this.lastModified = lastModified;
+            this.texture = texture;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -25,6 +25,7 @@
  */
 package de.view3d.utilities;
 
+import com.ardor3d.RasterTextLabel;
 import com.ardor3d.math.ColorRGBA;
 import com.ardor3d.math.Matrix3;
 import com.ardor3d.math.Transform;
@@ -35,6 +36,7 @@ import com.ardor3d.scenegraph.Line;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Node;
 import com.ardor3d.scenegraph.Point;
+import com.ardor3d.scenegraph.Spatial;
 import com.ardor3d.scenegraph.shape.Cone;
 import com.ardor3d.util.geom.BufferUtils;
 import java.awt.Color;
@@ -94,6 +96,7 @@ public class CoordinateSystem extends Node {
     }
 
     public void update() {
+        dispose();
         this.detachAllChildren();
 
         attachChild(createCoordinateSystem());
@@ -106,6 +109,24 @@ public class CoordinateSystem extends Node {
          setBounds(new BoundingBox(lower, upper));*/
     }
 
+    /**
+     * Releases the textures of the captions. The coordinate system must not
+     * be drawn until the next {@link #update()}.
+     */
+    public void dispose() {
+        disposeLabels(this);
+    }
+
+    private static void disposeLabels(Spatial spatial) {
+        if (spatial instanceof RasterTextLabel) {
+            ((RasterTextLabel) spatial).dispose();
+        } else if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                disposeLabels(child);
+            }
+        }
+    }
+
     private Node createCoordinateSystem() {
 
         Node lineGroup = new Node();
@@ -174,9 +195,9 @@ public class CoordinateSystem extends Node {
         for (Vector3 p : points) {
             lineGroup.attachChild(createPointAt(p, pointSize));
         }
-        lineGroup.attachChild(new com.ardor3d.RasterTextLabel(captionX, Color.BLACK, coordinateBounds.xmax + margin, distCaption, distCaption));
-        lineGroup.attachChild(new com.ardor3d.RasterTextLabel(captionY, Color.BLACK, distCaption, coordinateBounds.ymax + margin, distCaption));
-        lineGroup.attachChild(new com.ardor3d.RasterTextLabel(captionZ, Color.BLACK, distCaption, distCaption, coordinateBounds.zmax + margin));
+        lineGroup.attachChild(new RasterTextLabel(captionX, Color.BLACK, coordinateBounds.xmax + margin, distCaption, distCaption));
+        lineGroup.attachChild(new RasterTextLabel(captionY, Color.BLACK, distCaption, coordinateBounds.ymax + margin, distCaption));
+        lineGroup.attachChild(new RasterTextLabel(captionZ, Color.BLACK, distCaption, distCaption, coordinateBounds.zmax + margin));
 
         // Add a material state
         final MaterialState ms = new MaterialState();
@@ -0,0 +1,181 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.Line;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.util.geom.BufferUtils;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Creates the wireframe of a mesh as one indexed {@link Line} containing
+ * every edge only once. Vertices with identical positions are welded, so
+ * that edges shared by neighbouring elements with separate vertices are not
+ * drawn twice. Quads are outlined without their diagonals.
+ *
+ * @author Andreas Hauffe
+ */
+public class EdgeExtractor {
+
+    private EdgeExtractor() {
+    }
+
+    /**
+     * Extracts the unique edges of the polygons of the given mesh.
+     *
+     * @param mesh the mesh
+     * @return the edges or null, if the mesh has no polygons
+     */
+    public static Line createEdgeLines(Mesh mesh) {
+        MeshData data = mesh.getMeshData();
+        FloatBuffer vertices = data.getVertexBuffer();
+        if (vertices == null || data.getVertexCount() == 0) {
+            return null;
+        }
+
+        int vertexCount = data.getVertexCount();
+        int[] weld = new int[vertexCount];
+        PositionHash positions = new PositionHash(vertexCount);
+        for (int ii = 0; ii < vertexCount; ii++) {
+            weld[ii] = positions.add(vertices.get(ii * 3), vertices.get(ii * 3 + 1), vertices.get(ii * 3 + 2));
+        }
+
+        EdgeSet edges = new EdgeSet(data.getTotalPrimitiveCount() * 2);
+        int[] store = new int[4];
+        for (int section = 0; section < data.getSectionCount(); section++) {
+            IndexMode mode = data.getIndexMode(section);
+            int[] order;
+            switch (mode) {
+                case Triangles:
+                case TriangleStrip:
+                case TriangleFan:
+                    order = new int[]{0, 1, 2};
+                    break;
+                case Quads:
+                    order = new int[]{0, 1, 2, 3};
+                    break;
+                case QuadStrip:
+                    order = new int[]{0, 1, 3, 2};
+                    break;
+                default:
+                    continue;
+            }
+            int count = data.getPrimitiveCount(section);
+            for (int p = 0; p < count; p++) {
+                data.getPrimitiveIndices(p, section, store);
+                for (int ii = 0; ii < order.length; ii++) {
+                    edges.add(weld[store[order[ii]]], weld[store[order[(ii + 1) % order.length]]]);
+                }
+            }
+        }
+
+        if (edges.size() == 0) {
+            return null;
+        }
+
+        IndexBufferData<?> indices = BufferUtils.createIndexBufferData(edges.size() * 2, positions.size() - 1);
+        edges.writeTo(indices);
+        indices.rewind();
+
+        Line line = new Line(mesh.getName() + "Edges");
+        line.getMeshData().setVertexBuffer(positions.toBuffer());
+        line.getMeshData().setIndices(indices);
+        line.getMeshData().setIndexMode(IndexMode.Lines);
+        line.setAntialiased(true);
+        line.setLineWidth(1.0f);
+        line.setModelBound(new BoundingBox());
+        return line;
+    }
+
+    /**
+     * Open addressing hash set of undirected edges between welded vertices.
+     */
+    private static final class EdgeSet {
+
+        private long[] table;
+        private int size;
+
+        EdgeSet(int expected) {
+            table = new long[Integer.highestOneBit(Math.max(expected, 2) * 2) * 2];
+            Arrays.fill(table, -1L);
+        }
+
+        void add(int a, int b) {
+            if (a == b) {
+                return;
+            }
+            long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+            if ((size + 1) * 2 > table.length) {
+                grow();
+            }
+            insert(key);
+        }
+
+        private boolean insert(long key) {
+            int mask = table.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 35) & mask;
+            while (table[slot] != -1L) {
+                if (table[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            Arrays.fill(table, -1L);
+            size = 0;
+            for (long key : old) {
+                if (key != -1L) {
+                    insert(key);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeTo(IndexBufferData<?> indices) {
+            for (long key : table) {
+                if (key != -1L) {
+                    indices.put((int) (key >>> 32));
+                    indices.put((int) key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.util.geom.BufferUtils;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GLContext;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import org.openide.util.Exceptions;
+
+/**
+ * Captures the rendered frames of a view as a numbered image sequence. The
+ * pixels of every frame are read asynchronously into a ring of pixel buffer
+ * objects. A buffer is only mapped when the ring has wrapped around, i.e.
+ * {@link #RING_SIZE} - 1 frames later, so the render thread does not wait
+ * for the transfer. The images are encoded by a pool of threads. If the
+ * pool falls behind by more than {@link #MAX_QUEUED_IMAGES} images, the
+ * render thread waits for it.
+ *
+ * Without pixel buffer objects the frames are read synchronously.
+ *
+ * The methods capture and finish have to be called with the GL context being
+ * current, e.g. from {@link com.ardor3d.framework.Scene#renderUnto}.
+ *
+ * @author Andreas Hauffe
+ */
+public class FrameCapture {
+
+    public static final int RING_SIZE = 3;
+
+    public static final int MAX_QUEUED_IMAGES = 8;
+
+    private final File directory;
+    private final String prefix;
+    private final String format;
+
+    private final ExecutorService encoder;
+    private final Semaphore queued = new Semaphore(MAX_QUEUED_IMAGES);
+    private final AtomicInteger writtenCount = new AtomicInteger();
+
+    private volatile boolean stopped = false;
+
+    private int[] buffers;
+    private final int[] frameNumbers = new int[RING_SIZE];
+    private int width;
+    private int height;
+    private int next = 0;
+    private int pending = 0;
+    private int frameCount = 0;
+    private ByteBuffer syncPixels;
+
+    /**
+     * Creates the capture. The images are named prefix + frame number with
+     * five digits + "." + format.
+     *
+     * @param directory directory of the images
+     * @param prefix prefix of the file names
+     * @param format ImageIO format of the images, e.g. "png"
+     */
+    public FrameCapture(File directory, String prefix, String format) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.format = format;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        encoder = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "View3D frame encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops the capture. The pending frames are written at the next call of
+     * {@link #finish()}.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Starts the readback of the current frame buffer.
+     *
+     * @param width width of the frame
+     * @param height height of the frame
+     */
+    public void capture(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final GL gl = GLContext.getCurrentGL();
+        gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+        if (!gl.isGL2ES3()) {
+            if (syncPixels == null || syncPixels.capacity() < 4 * width * height) {
+                syncPixels = BufferUtils.createByteBuffer(4 * width * height);
+            }
+            syncPixels.clear();
+            gl.glReadPixels(0, 0, width, height, GL.GL_BGRA, GL.GL_UNSIGNED_BYTE, syncPixels);
+            encode(syncPixels, width, height, frameCount++);
+            return;
+        }
+
+        if (buffers == null || width != this.width || height != this.height) {
+            finish(gl);
+            createBuffers(gl, width, height);
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, buffers[next]);
+        gl.glReadPixels(0, 0, width, height, GL.GL_BGRA, GL.GL_UNSIGNED_BYTE, 0L);
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+        frameNumbers[next] = frameCount++;
+        next = (next + 1) % RING_SIZE;
+        pending++;
+        if (pending == RING_SIZE) {
+            // the oldest frame is read before its buffer is used again
+            read(gl, next);
+            pending--;
+        }
+    }
+
+    /**
+     * Reads all pending frames and deletes the pixel buffer objects. The
+     * encoder finishes the queued images in the background.
+     */
+    public void finish() {
+        if (buffers != null) {
+            finish(GLContext.getCurrentGL());
+        }
+        encoder.shutdown();
+    }
+
+    /**
+     * Drops the frames still pending in the pixel buffer objects, e.g. if the
+     * context cannot be made current anymore, as the buffers are deleted
+     * together with the context. The encoder finishes the queued images in
+     * the background.
+     */
+    public void discard() {
+        buffers = null;
+        pending = 0;
+        next = 0;
+        encoder.shutdown();
+    }
+
+    private void finish(GL gl) {
+        if (buffers == null) {
+            return;
+        }
+        while (pending > 0) {
+            read(gl, (next - pending + RING_SIZE) % RING_SIZE);
+            pending--;
+        }
+        IntBuffer ids = BufferUtils.createIntBuffer(RING_SIZE);
+        ids.put(buffers).flip();
+        gl.glDeleteBuffers(RING_SIZE, ids);
+        buffers = null;
+        next = 0;
+    }
+
+    private void createBuffers(GL gl, int width, int height) {
+        this.width = width;
+        this.height = height;
+        IntBuffer ids = BufferUtils.createIntBuffer(RING_SIZE);
+        gl.glGenBuffers(RING_SIZE, ids);
+        buffers = new int[RING_SIZE];
+        ids.get(buffers);
+        for (int buffer : buffers) {
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, buffer);
+            gl.glBufferData(GL2ES3.GL_PIXEL_PACK_BUFFER, 4L * width * height, null, GL2ES3.GL_STREAM_READ);
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    private void read(GL gl, int slot) {
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, buffers[slot]);
+        ByteBuffer pixels = gl.glMapBufferRange(GL2ES3.GL_PIXEL_PACK_BUFFER, 0, 4L * width * height, GL2ES3.GL_MAP_READ_BIT);
+        if (pixels != null) {
+            encode(pixels, width, height, frameNumbers[slot]);
+            gl.glUnmapBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER);
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    /**
+     * Copies the BGRA pixels into an image and hands it to the encoder.
+     */
+    private void encode(ByteBuffer pixels, int width, int height, int frame) {
+        queued.acquireUninterruptibly();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        // little endian BGRA is ARGB, GL rows start at the bottom
+        IntBuffer argb = pixels.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int row = 0; row < height; row++) {
+            argb.get(row * width, data, (height - row - 1) * width, width);
+        }
+        File file = new File(directory, String.format("%s%05d.%s", prefix, frame, format));
+        encoder.execute(() -> {
+            try {
+                ImageIO.write(image, format, file);
+                writtenCount.incrementAndGet();
+            } catch (IOException ex) {
+                Exceptions.printStackTrace(ex);
+            } finally {
+                queued.release();
+            }
+        });
+    }
+}
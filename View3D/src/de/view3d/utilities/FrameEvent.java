@@ -0,0 +1,74 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event with the durations of the stages of one frame of a
+ * view.
+ *
+ * @author Andreas Hauffe
+ */
+@Name("de.view3d.Frame")
+@Label("View3D Frame")
+@Category("View3D")
+@Description("Durations of the stages of a rendered frame")
+@StackTrace(false)
+class FrameEvent extends Event {
+
+    @Label("View")
+    String view;
+
+    @Label("Triggers")
+    @Timespan(Timespan.NANOSECONDS)
+    long triggers;
+
+    @Label("Update Geometric State")
+    @Timespan(Timespan.NANOSECONDS)
+    long updateGeometricState;
+
+    @Label("Render Unto")
+    @Timespan(Timespan.NANOSECONDS)
+    long renderUnto;
+
+    @Label("Present")
+    @Timespan(Timespan.NANOSECONDS)
+    long present;
+
+    @Label("Frame")
+    @Timespan(Timespan.NANOSECONDS)
+    long frame;
+
+    @Label("Late")
+    boolean late;
+}
@@ -0,0 +1,221 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.TextureTracker;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.openide.util.Exceptions;
+
+/**
+ * Collects the durations of the stages of the frames of one view in rolling
+ * histograms and counts the frames which exceed the frame budget. The
+ * metrics are published as MXBean "de.view3d:type=FrameMetrics,name=..." and
+ * every frame is emitted as flight recorder event "de.view3d.Frame".
+ *
+ * @author Andreas Hauffe
+ */
+public class FrameMetrics implements FrameMetricsMXBean {
+
+    public static final int WINDOW = 600;
+
+    private final RollingHistogram triggers = new RollingHistogram(WINDOW);
+    private final RollingHistogram update = new RollingHistogram(WINDOW);
+    private final RollingHistogram render = new RollingHistogram(WINDOW);
+    private final RollingHistogram present = new RollingHistogram(WINDOW);
+    private final RollingHistogram frame = new RollingHistogram(WINDOW);
+
+    private volatile long frameCount;
+    private volatile long lateFrameCount;
+    private volatile long droppedFrameCount;
+    private volatile long frameBudgetNanos;
+
+    // durations of the current frame
+    private long triggersNanos;
+    private long updateNanos;
+    private long renderNanos;
+
+    private ObjectName objectName;
+
+    public FrameMetrics(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    public void setFrameBudgetNanos(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    public void frameStarted() {
+        triggersNanos = 0;
+        updateNanos = 0;
+        renderNanos = 0;
+    }
+
+    public void recordTriggers(long nanos) {
+        triggersNanos += nanos;
+    }
+
+    public void recordUpdate(long nanos) {
+        updateNanos += nanos;
+    }
+
+    public void recordRender(long nanos) {
+        renderNanos += nanos;
+    }
+
+    /**
+     * Finishes the current frame.
+     *
+     * @param view name of the view
+     * @param frameNanos duration of the whole frame
+     */
+    public void frameFinished(String view, long frameNanos) {
+        long presentNanos = Math.max(0, frameNanos - triggersNanos - updateNanos - renderNanos);
+        triggers.add(triggersNanos);
+        update.add(updateNanos);
+        render.add(renderNanos);
+        present.add(presentNanos);
+        frame.add(frameNanos);
+
+        long budget = frameBudgetNanos;
+        boolean late = budget > 0 && frameNanos > budget;
+        frameCount++;
+        if (late) {
+            lateFrameCount++;
+            droppedFrameCount += (frameNanos - 1) / budget;
+        }
+
+        FrameEvent event = new FrameEvent();
+        if (event.isEnabled()) {
+            event.view = view;
+            event.triggers = triggersNanos;
+            event.updateGeometricState = updateNanos;
+            event.renderUnto = renderNanos;
+            event.present = presentNanos;
+            event.frame = frameNanos;
+            event.late = late;
+            event.commit();
+        }
+    }
+
+    /**
+     * Registers the metrics at the platform MBean server.
+     *
+     * @param view name of the view
+     */
+    public synchronized void register(String view) {
+        unregister();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName("de.view3d:type=FrameMetrics,name=" + ObjectName.quote(view));
+            server.registerMBean(this, objectName);
+        } catch (JMException ex) {
+            objectName = null;
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public FrameTimeStatistics getTriggers() {
+        return triggers.getStatistics();
+    }
+
+    @Override
+    public FrameTimeStatistics getUpdateGeometricState() {
+        return update.getStatistics();
+    }
+
+    @Override
+    public FrameTimeStatistics getRenderUnto() {
+        return render.getStatistics();
+    }
+
+    @Override
+    public FrameTimeStatistics getPresent() {
+        return present.getStatistics();
+    }
+
+    @Override
+    public FrameTimeStatistics getFrame() {
+        return frame.getStatistics();
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public long getLateFrameCount() {
+        return lateFrameCount;
+    }
+
+    @Override
+    public long getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    @Override
+    public double getFrameBudgetMillis() {
+        return frameBudgetNanos / 1.0e6;
+    }
+
+    @Override
+    public int getLiveTextureCount() {
+        return TextureTracker.getLiveTextureCount();
+    }
+
+    @Override
+    public long getLiveTextureBytes() {
+        return TextureTracker.getLiveTextureBytes();
+    }
+
+    @Override
+    public void reset() {
+        triggers.clear();
+        update.clear();
+        render.clear();
+        present.clear();
+        frame.clear();
+        frameCount = 0;
+        lateFrameCount = 0;
+        droppedFrameCount = 0;
+    }
+}
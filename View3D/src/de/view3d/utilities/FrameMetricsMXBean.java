@@ -0,0 +1,78 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+/**
+ * Management interface of the frame time metrics of one view.
+ *
+ * @author Andreas Hauffe
+ */
+public interface FrameMetricsMXBean {
+
+    FrameTimeStatistics getTriggers();
+
+    FrameTimeStatistics getUpdateGeometricState();
+
+    FrameTimeStatistics getRenderUnto();
+
+    /**
+     * Time of a frame which is neither spent in the triggers, the update nor
+     * in renderUnto, mainly the buffer swap and the hand over to the AWT
+     * thread.
+     *
+     * @return statistics of the remaining frame time
+     */
+    FrameTimeStatistics getPresent();
+
+    FrameTimeStatistics getFrame();
+
+    long getFrameCount();
+
+    /**
+     * @return number of frames which took longer than the frame budget
+     */
+    long getLateFrameCount();
+
+    /**
+     * @return number of frame slots missed by late frames
+     */
+    long getDroppedFrameCount();
+
+    double getFrameBudgetMillis();
+
+    /**
+     * @return number of textures owned by backgrounds and labels of all views
+     */
+    int getLiveTextureCount();
+
+    /**
+     * @return estimated size in bytes of the textures owned by backgrounds
+     * and labels of all views
+     */
+    long getLiveTextureBytes();
+
+    void reset();
+}
@@ -0,0 +1,109 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the frames of a view to a target frame rate. The start of every
+ * frame is scheduled on a fixed grid of deadlines.
+ *
+ * If a frame is late, the missed deadlines are either skipped, so that the
+ * grid is realigned to the current time, or caught up by starting the
+ * following frames without waiting.
+ *
+ * @author Andreas Hauffe
+ */
+public class FramePacer {
+
+    // at most this number of periods is caught up
+    private static final int MAX_CATCH_UP = 3;
+
+    private volatile long periodNanos;
+    private volatile boolean skipping = true;
+
+    private long deadline;
+    private long skippedFrameCount;
+
+    public FramePacer(int targetFrameRate) {
+        setTargetFrameRate(targetFrameRate);
+        reset();
+    }
+
+    public final void setTargetFrameRate(int targetFrameRate) {
+        periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, targetFrameRate);
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public boolean isSkipping() {
+        return skipping;
+    }
+
+    public void setSkipping(boolean skipping) {
+        this.skipping = skipping;
+    }
+
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    /**
+     * Schedules the next frame at the current time, e.g. after the render
+     * loop has been idle.
+     */
+    public final void reset() {
+        deadline = System.nanoTime();
+    }
+
+    /**
+     * @return time until the next frame is due, negative if it is overdue
+     */
+    public long getDelayNanos() {
+        return deadline - System.nanoTime();
+    }
+
+    /**
+     * Starts the due frame and schedules the next one.
+     *
+     * @param periods number of frame periods until the next frame
+     * @return number of skipped frames
+     */
+    public int startFrame(int periods) {
+        long period = periodNanos;
+        long now = System.nanoTime();
+        int skipped = 0;
+        if (now - deadline > period && (skipping || now - deadline > MAX_CATCH_UP * period)) {
+            skipped = (int) ((now - deadline) / period);
+            skippedFrameCount += skipped;
+            deadline = now;
+        }
+        deadline += periods * period;
+        return skipped;
+    }
+}
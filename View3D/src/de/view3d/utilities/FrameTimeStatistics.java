@@ -0,0 +1,89 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistics of the durations in the window of a {@link RollingHistogram}.
+ * The histogram counts the durations up to the limits of
+ * {@link #HISTOGRAM_LIMITS_MILLIS}, the last bucket counts all longer
+ * durations.
+ *
+ * @author Andreas Hauffe
+ */
+public class FrameTimeStatistics {
+
+    public static final double[] HISTOGRAM_LIMITS_MILLIS = {1.0, 2.0, 4.0, 8.0, 16.0, 33.0, 66.0};
+
+    private final int sampleCount;
+    private final double meanMillis;
+    private final double medianMillis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final long[] histogram;
+
+    @ConstructorProperties({"sampleCount", "meanMillis", "medianMillis", "p95Millis", "p99Millis", "maxMillis", "histogram"})
+    public FrameTimeStatistics(int sampleCount, double meanMillis, double medianMillis, double p95Millis,
+            double p99Millis, double maxMillis, long[] histogram) {
+        this.sampleCount = sampleCount;
+        this.meanMillis = meanMillis;
+        this.medianMillis = medianMillis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.histogram = histogram.clone();
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getMedianMillis() {
+        return medianMillis;
+    }
+
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+}
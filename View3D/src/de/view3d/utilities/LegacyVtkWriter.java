@@ -0,0 +1,153 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes the vertices of quad meshes as binary legacy VTK unstructured grid.
+ * The vertex buffers are streamed in big-endian chunks through one direct
+ * buffer to the file channel, so no copy of the model is created on the heap.
+ * Every four consecutive vertices form one quad cell.
+ *
+ * @author Andreas Hauffe
+ */
+public class LegacyVtkWriter {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final int VTK_QUAD = 9;
+
+    private final FileChannel channel;
+    private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.BIG_ENDIAN);
+
+    private LegacyVtkWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the quads of the meshes to the file. Nothing is written, if the
+     * meshes have no vertices.
+     *
+     * @param meshes the meshes
+     * @param path the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeQuads(List<Mesh> meshes, Path path) throws IOException {
+        int nP = 0;
+        for (Mesh mesh : meshes) {
+            nP += mesh.getMeshData().getVertexCount();
+        }
+        if (nP == 0) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            LegacyVtkWriter writer = new LegacyVtkWriter(channel);
+            writer.writeAscii("# vtk DataFile Version 4.0\n");
+            writer.writeAscii("eLamX2\n");
+            writer.writeAscii("BINARY\n");
+            writer.writeAscii("DATASET UNSTRUCTURED_GRID\n");
+            writer.writeAscii("POINTS " + nP + " float\n");
+            for (Mesh mesh : meshes) {
+                MeshData data = mesh.getMeshData();
+                writer.writeFloats(data.getVertexBuffer(), data.getVertexCount() * 3);
+            }
+
+            int numCells = nP / 4;
+            writer.writeAscii("\nCELLS " + numCells + " " + numCells * 5 + "\n");
+            for (int ii = 0; ii < numCells; ii++) {
+                writer.writeInt(4);
+                writer.writeInt(ii * 4);
+                writer.writeInt(ii * 4 + 1);
+                writer.writeInt(ii * 4 + 2);
+                writer.writeInt(ii * 4 + 3);
+            }
+
+            writer.writeAscii("\nCELL_TYPES " + numCells + "\n");
+            for (int ii = 0; ii < numCells; ii++) {
+                writer.writeInt(VTK_QUAD);
+            }
+            writer.writeAscii("\n");
+            writer.flush();
+        }
+    }
+
+    private void writeAscii(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        if (chunk.remaining() < bytes.length) {
+            flush();
+        }
+        chunk.put(bytes);
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (chunk.remaining() < Integer.BYTES) {
+            flush();
+        }
+        chunk.putInt(value);
+    }
+
+    /**
+     * Copies the first count floats of the buffer in bulk into the chunk. The
+     * byte order is converted by the float view of the chunk.
+     */
+    private void writeFloats(FloatBuffer buffer, int count) throws IOException {
+        // a duplicate leaves the position of the mesh buffer untouched
+        FloatBuffer source = buffer.duplicate();
+        source.clear();
+        int written = 0;
+        while (written < count) {
+            if (chunk.remaining() < Float.BYTES) {
+                flush();
+            }
+            int n = Math.min(count - written, chunk.remaining() / Float.BYTES);
+            source.limit(written + n).position(written);
+            chunk.asFloatBuffer().put(source);
+            chunk.position(chunk.position() + n * Float.BYTES);
+            written += n;
+        }
+    }
+
+    private void flush() throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+        chunk.clear();
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Matrix3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.math.type.ReadOnlyTransform;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.BlendState;
+import com.ardor3d.renderer.state.CullState;
+import com.ardor3d.renderer.state.MaterialState;
+import com.ardor3d.renderer.state.OffsetState;
+import com.ardor3d.renderer.state.RenderState;
+import com.ardor3d.renderer.state.ShadingState;
+import com.ardor3d.renderer.state.WireframeState;
+import com.ardor3d.renderer.state.ZBufferState;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.Line;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.Point;
+import com.ardor3d.scenegraph.hint.SceneHints;
+import com.ardor3d.util.geom.BufferUtils;
+import de.view3d.BatchedMesh;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges meshes with compatible render states into a few large
+ * {@link BatchedMesh}es, so that the number of draw calls no longer depends on
+ * the number of meshes. Meshes which cannot be merged (lines, points, textured
+ * or strip meshes) are passed through unchanged. Transparent meshes are not
+ * merged either, as they have to be sorted back to front one by one.
+ *
+ * @author Andreas Hauffe
+ */
+public class MeshBatcher {
+
+    /**
+     * Maximum number of vertices of a single batch.
+     */
+    public static final int MAX_BATCH_VERTICES = 1 << 20;
+
+    private MeshBatcher() {
+    }
+
+    /**
+     * Merges the given meshes. The returned list contains the batches and all
+     * meshes which could not be merged. The source meshes are not modified.
+     *
+     * @param shapes meshes to merge
+     * @param modelBounds model bounds of the meshes, e.g. computed by
+     * {@link ParallelBounds}
+     * @return meshes to attach to the scene graph
+     */
+    public static List<Mesh> batch(List<Mesh> shapes, Map<Mesh, ? extends BoundingVolume> modelBounds) {
+        List<Mesh> result = new ArrayList<>();
+        Map<BatchKey, List<Mesh>> groups = new LinkedHashMap<>();
+        for (Mesh shape : shapes) {
+            if (isBatchable(shape)) {
+                groups.computeIfAbsent(new BatchKey(shape), k -> new ArrayList<>()).add(shape);
+            } else {
+                result.add(shape);
+            }
+        }
+
+        int batchNumber = 0;
+        for (List<Mesh> group : groups.values()) {
+            if (group.size() == 1) {
+                result.add(group.get(0));
+                continue;
+            }
+            int start = 0;
+            int vertices = 0;
+            for (int ii = 0; ii < group.size(); ii++) {
+                int count = group.get(ii).getMeshData().getVertexCount();
+                if (ii > start && vertices + count > MAX_BATCH_VERTICES) {
+                    result.add(merge("Batch" + batchNumber++, group.subList(start, ii), modelBounds));
+                    start = ii;
+                    vertices = 0;
+                }
+                vertices += count;
+            }
+            result.add(merge("Batch" + batchNumber++, group.subList(start, group.size()), modelBounds));
+        }
+        return result;
+    }
+
+    private static boolean isBatchable(Mesh mesh) {
+        if (mesh instanceof Line || mesh instanceof Point || mesh instanceof BatchedMesh) {
+            return false;
+        }
+        MeshData data = mesh.getMeshData();
+        if (data.getVertexBuffer() == null || data.getVertexCount() == 0 || data.getIndexLengths() != null) {
+            return false;
+        }
+        if (mesh.getSceneHints().getRenderBucketType() == RenderBucketType.Transparent) {
+            return false;
+        }
+        IndexMode mode = data.getIndexMode(0);
+        if (mode != IndexMode.Triangles && mode != IndexMode.Quads) {
+            return false;
+        }
+        return mesh.getLocalRenderState(RenderState.StateType.Texture) == null
+                && mesh.getLocalRenderState(RenderState.StateType.GLSLShader) == null;
+    }
+
+    /**
+     * Computes the matrix, which transforms the normals like the transform
+     * does the vertices, i.e. the inverse transpose of its linear part, so
+     * the normals stay perpendicular to the surface under non-uniform scale.
+     * The transposed adjugate is used, which differs from the inverse
+     * transpose only by the determinant, as the normals are normalized.
+     */
+    private static Matrix3 toNormalMatrix(ReadOnlyTransform transform, Matrix3 store) {
+        Vector3 column = new Vector3();
+        for (int ii = 0; ii < 3; ii++) {
+            column.zero().setValue(ii, 1.0);
+            store.setColumn(ii, transform.applyForwardVector(column));
+        }
+        boolean mirrored = store.determinant() < 0.0;
+        store.adjugateLocal().transposeLocal();
+        return mirrored ? store.multiplyLocal(-1.0) : store;
+    }
+
+    private static BatchedMesh merge(String name, List<Mesh> meshes, Map<Mesh, ? extends BoundingVolume> modelBounds) {
+        Mesh first = meshes.get(0);
+        boolean normals = first.getMeshData().getNormalBuffer() != null;
+        boolean colors = false;
+        int vertexCount = 0;
+        int indexCount = 0;
+        for (Mesh mesh : meshes) {
+            MeshData data = mesh.getMeshData();
+            colors |= data.getColorBuffer() != null || !mesh.getDefaultColor().equals(first.getDefaultColor());
+            vertexCount += data.getVertexCount();
+            indexCount += data.getIndices() != null ? data.getIndices().limit() : data.getVertexCount();
+        }
+
+        FloatBuffer vertexBuffer = BufferUtils.createVector3Buffer(vertexCount);
+        FloatBuffer normalBuffer = normals ? BufferUtils.createVector3Buffer(vertexCount) : null;
+        FloatBuffer colorBuffer = colors ? BufferUtils.createColorBuffer(vertexCount) : null;
+        IndexBufferData<?> indices = BufferUtils.createIndexBufferData(indexCount, vertexCount - 1);
+
+        int verticesPerPrimitive = first.getMeshData().getIndexMode(0) == IndexMode.Quads ? 4 : 3;
+        int[] vertexStart = new int[meshes.size()];
+        int[] primitiveStart = new int[meshes.size()];
+        int vertexOffset = 0;
+        int primitiveOffset = 0;
+        Vector3 temp = new Vector3();
+        Matrix3 normalMatrix = new Matrix3();
+        for (int ii = 0; ii < meshes.size(); ii++) {
+            Mesh mesh = meshes.get(ii);
+            MeshData data = mesh.getMeshData();
+            ReadOnlyTransform transform = mesh.getTransform();
+            int count = data.getVertexCount();
+            vertexStart[ii] = vertexOffset;
+            primitiveStart[ii] = primitiveOffset;
+
+            FloatBuffer source = data.getVertexBuffer().duplicate();
+            source.rewind();
+            if (transform.isIdentity()) {
+                source.limit(count * 3);
+                vertexBuffer.put(source);
+            } else {
+                for (int jj = 0; jj < count; jj++) {
+                    temp.set(source.get(), source.get(), source.get());
+                    transform.applyForward(temp);
+                    vertexBuffer.put(temp.getXf()).put(temp.getYf()).put(temp.getZf());
+                }
+            }
+
+            if (normals) {
+                source = data.getNormalBuffer().duplicate();
+                source.rewind();
+                if (transform.isIdentity()) {
+                    source.limit(count * 3);
+                    normalBuffer.put(source);
+                } else {
+                    toNormalMatrix(transform, normalMatrix);
+                    for (int jj = 0; jj < count; jj++) {
+                        temp.set(source.get(), source.get(), source.get());
+                        normalMatrix.applyPost(temp, temp).normalizeLocal();
+                        normalBuffer.put(temp.getXf()).put(temp.getYf()).put(temp.getZf());
+                    }
+                }
+            }
+
+            if (colors) {
+                if (data.getColorBuffer() != null) {
+                    source = data.getColorBuffer().duplicate();
+                    source.rewind();
+                    source.limit(count * 4);
+                    colorBuffer.put(source);
+                } else {
+                    ReadOnlyColorRGBA c = mesh.getDefaultColor();
+                    for (int jj = 0; jj < count; jj++) {
+                        colorBuffer.put(c.getRed()).put(c.getGreen()).put(c.getBlue()).put(c.getAlpha());
+                    }
+                }
+            }
+
+            IndexBufferData<?> sourceIndices = data.getIndices();
+            int primitiveVertices;
+            if (sourceIndices != null) {
+                primitiveVertices = sourceIndices.limit();
+                for (int jj = 0; jj < primitiveVertices; jj++) {
+                    indices.put(sourceIndices.get(jj) + vertexOffset);
+                }
+            } else {
+                primitiveVertices = count;
+                for (int jj = 0; jj < count; jj++) {
+                    indices.put(jj + vertexOffset);
+                }
+            }
+
+            vertexOffset += count;
+            primitiveOffset += primitiveVertices / verticesPerPrimitive;
+        }
+
+        BatchedMesh batch = new BatchedMesh(name, new ArrayList<>(meshes), vertexStart, primitiveStart);
+        MeshData data = batch.getMeshData();
+        data.setVertexBuffer(vertexBuffer);
+        data.setNormalBuffer(normalBuffer);
+        data.setColorBuffer(colorBuffer);
+        indices.rewind();
+        data.setIndices(indices);
+        data.setIndexMode(first.getMeshData().getIndexMode(0));
+        batch.setDefaultColor(first.getDefaultColor());
+
+        for (RenderState state : first.getLocalRenderStates().values()) {
+            batch.setRenderState(state);
+        }
+        SceneHints hints = batch.getSceneHints();
+        hints.setRenderBucketType(first.getSceneHints().getRenderBucketType());
+        hints.setTransparencyType(first.getSceneHints().getTransparencyType());
+        hints.setLightCombineMode(first.getSceneHints().getLightCombineMode());
+        hints.setCullHint(first.getSceneHints().getCullHint());
+
+        BoundingBox bound = mergeBounds(meshes, modelBounds);
+        if (bound != null) {
+            batch.setModelBound(bound, false);
+        } else {
+            batch.setModelBound(new BoundingBox());
+        }
+        return batch;
+    }
+
+    /**
+     * Merges the given model bounds of the meshes, so the vertices of the
+     * batch need not be scanned again.
+     *
+     * @return the merged bound or null if a mesh has no bounding box
+     */
+    private static BoundingBox mergeBounds(List<Mesh> meshes, Map<Mesh, ? extends BoundingVolume> modelBounds) {
+        BoundingBox result = null;
+        for (Mesh mesh : meshes) {
+            BoundingVolume bound = modelBounds.get(mesh);
+            if (!(bound instanceof BoundingBox)) {
+                return null;
+            }
+            if (!mesh.getTransform().isIdentity()) {
+                bound = bound.transform(mesh.getTransform(), null);
+            }
+            if (result == null) {
+                result = (BoundingBox) bound.clone(null);
+            } else {
+                result.mergeLocal(bound);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Key of meshes which can be drawn with the same render states.
+     */
+    private static final class BatchKey {
+
+        private final List<Object> values = new ArrayList<>();
+
+        BatchKey(Mesh mesh) {
+            MeshData data = mesh.getMeshData();
+            values.add(data.getIndexMode(0));
+            values.add(data.getNormalBuffer() != null);
+            SceneHints hints = mesh.getSceneHints();
+            values.add(hints.getRenderBucketType());
+            values.add(hints.getTransparencyType());
+            values.add(hints.getLightCombineMode());
+            values.add(hints.getCullHint());
+            for (RenderState state : mesh.getLocalRenderStates().values()) {
+                values.add(stateSignature(state));
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BatchKey key && values.equals(key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+    }
+
+    /**
+     * Returns an object which is equal for render states having the same
+     * effect. Unknown states are only compatible to themselves.
+     */
+    private static Object stateSignature(RenderState state) {
+        if (state instanceof BlendState bs) {
+            return Arrays.asList(bs.getType(), bs.isEnabled(), bs.isBlendEnabled(),
+                    bs.getSourceFunctionRGB(), bs.getDestinationFunctionRGB(),
+                    bs.getSourceFunctionAlpha(), bs.getDestinationFunctionAlpha(),
+                    bs.isTestEnabled(), bs.getTestFunction(), bs.getReference());
+        } else if (state instanceof MaterialState ms) {
+            return Arrays.asList(ms.getType(), ms.isEnabled(), ms.getColorMaterial(), ms.getColorMaterialFace(),
+                    new ColorRGBA(ms.getAmbient()), new ColorRGBA(ms.getDiffuse()),
+                    new ColorRGBA(ms.getSpecular()), new ColorRGBA(ms.getEmissive()),
+                    ms.getShininess(), ms.getBackShininess());
+        } else if (state instanceof CullState cs) {
+            return Arrays.asList(cs.getType(), cs.isEnabled(), cs.getCullFace(), cs.getPolygonWind());
+        } else if (state instanceof OffsetState os) {
+            return Arrays.asList(os.getType(), os.isEnabled(), os.getFactor(), os.getUnits());
+        } else if (state instanceof ZBufferState zs) {
+            return Arrays.asList(zs.getType(), zs.isEnabled(), zs.isWritable(), zs.getFunction());
+        } else if (state instanceof WireframeState ws) {
+            return Arrays.asList(ws.getType(), ws.isEnabled(), ws.getFace(), ws.getLineWidth(), ws.isAntialiased());
+        } else if (state instanceof ShadingState ss) {
+            return Arrays.asList(ss.getType(), ss.isEnabled(), ss.getShadingMode());
+        }
+        return state;
+    }
+}
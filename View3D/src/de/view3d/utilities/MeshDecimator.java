@@ -0,0 +1,712 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.renderer.state.RenderState;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.hint.SceneHints;
+import com.ardor3d.util.geom.BufferUtils;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Simplifies the polygons of a mesh by quadric edge collapse. Vertices with
+ * identical positions and colors are welded first. Vertices on the boundary
+ * of the surface are locked, so that the outline of the model is preserved.
+ * As vertices with different colors are not welded, color bands are
+ * boundaries too and are preserved as well. Vertices on hard edges, where the
+ * triangles meet at more than {@link #CREASE_ANGLE}, are locked in the same
+ * way. The normals of the mesh are not used for welding, so flat shaded
+ * meshes and the flat shaded result of a previous decimation can be
+ * decimated too. Vertex colors are carried along with the collapsed vertices.
+ * The result is a triangle mesh with flat normals.
+ *
+ * @author Andreas Hauffe
+ */
+public class MeshDecimator {
+
+    /**
+     * Angle in degrees between two triangles, above which their common edge
+     * is a hard edge.
+     */
+    public static final double CREASE_ANGLE = 45.0;
+
+    private static final double CREASE_COS = Math.cos(Math.toRadians(CREASE_ANGLE));
+
+    private MeshDecimator() {
+    }
+
+    /**
+     * Checks whether the mesh consists of polygons without textures.
+     *
+     * @param mesh the mesh
+     * @return true, if the mesh can be decimated
+     */
+    public static boolean isDecimatable(Mesh mesh) {
+        MeshData data = mesh.getMeshData();
+        if (data.getVertexBuffer() == null || data.getVertexCount() == 0
+                || mesh.getLocalRenderState(RenderState.StateType.Texture) != null
+                || mesh.getLocalRenderState(RenderState.StateType.GLSLShader) != null) {
+            return false;
+        }
+        for (int section = 0; section < data.getSectionCount(); section++) {
+            if (order(data.getIndexMode(section)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of triangles of the polygons of the mesh. Quads count
+     * as two triangles.
+     *
+     * @param mesh the mesh
+     * @return number of triangles
+     */
+    public static int getTriangleCount(Mesh mesh) {
+        MeshData data = mesh.getMeshData();
+        int count = 0;
+        for (int section = 0; section < data.getSectionCount(); section++) {
+            int[] order = order(data.getIndexMode(section));
+            if (order != null) {
+                count += data.getPrimitiveCount(section) * (order.length - 2);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Simplifies the mesh until it consists of at most the given number of
+     * triangles or no further edge can be collapsed. The render states, scene
+     * hints and the transformation of the mesh are copied.
+     *
+     * @param mesh the mesh
+     * @param targetTriangles wanted number of triangles
+     * @return the simplified mesh or null, if the mesh could not be reduced
+     */
+    public static Mesh decimate(Mesh mesh, int targetTriangles) {
+        if (!isDecimatable(mesh)) {
+            return null;
+        }
+        MeshData data = mesh.getMeshData();
+        FloatBuffer vertices = data.getVertexBuffer();
+        FloatBuffer normals = data.getNormalBuffer();
+        FloatBuffer colors = data.getColorBuffer();
+
+        int vertexCount = data.getVertexCount();
+        int[] weld = new int[vertexCount];
+        int colorCount = colors != null ? 4 : 0;
+        PositionHash positions = new PositionHash(vertexCount, colorCount);
+        float[] attributes = new float[colorCount];
+        for (int ii = 0; ii < vertexCount; ii++) {
+            for (int jj = 0; jj < colorCount; jj++) {
+                attributes[jj] = colors.get(ii * 4 + jj);
+            }
+            weld[ii] = positions.add(vertices.get(ii * 3), vertices.get(ii * 3 + 1), vertices.get(ii * 3 + 2), attributes);
+        }
+
+        Surface surface = new Surface(positions, getTriangleCount(mesh));
+        for (int ii = 0; ii < vertexCount; ii++) {
+            int v = weld[ii];
+            if (normals != null) {
+                for (int jj = 0; jj < 3; jj++) {
+                    surface.normal[v * 3 + jj] += normals.get(ii * 3 + jj);
+                }
+            }
+            // all vertices welded into v have the same color
+            if (colors != null && !surface.colored[v]) {
+                for (int jj = 0; jj < 4; jj++) {
+                    surface.color[v * 4 + jj] = colors.get(ii * 4 + jj);
+                }
+                surface.colored[v] = true;
+            }
+        }
+
+        int[] store = new int[4];
+        for (int section = 0; section < data.getSectionCount(); section++) {
+            int[] order = order(data.getIndexMode(section));
+            int count = data.getPrimitiveCount(section);
+            for (int p = 0; p < count; p++) {
+                data.getPrimitiveIndices(p, section, store);
+                // polygons are split into a fan of triangles
+                for (int ii = 1; ii < order.length - 1; ii++) {
+                    surface.addTriangle(weld[store[order[0]]], weld[store[order[ii]]], weld[store[order[ii + 1]]]);
+                }
+            }
+        }
+
+        if (!surface.simplify(targetTriangles)) {
+            return null;
+        }
+
+        Mesh result = new Mesh(mesh.getName() + "Decimated");
+        surface.writeTo(result.getMeshData(), normals != null, colors != null);
+        result.setDefaultColor(mesh.getDefaultColor());
+        for (RenderState state : mesh.getLocalRenderStates().values()) {
+            result.setRenderState(state);
+        }
+        SceneHints hints = result.getSceneHints();
+        hints.setRenderBucketType(mesh.getSceneHints().getRenderBucketType());
+        hints.setTransparencyType(mesh.getSceneHints().getTransparencyType());
+        hints.setLightCombineMode(mesh.getSceneHints().getLightCombineMode());
+        hints.setCullHint(mesh.getSceneHints().getCullHint());
+        result.setTransform(mesh.getTransform());
+        result.setModelBound(new BoundingBox());
+        return result;
+    }
+
+    /**
+     * Returns the vertex order of the outline of the primitives of the given
+     * mode or null, if the mode does not describe polygons.
+     */
+    private static int[] order(IndexMode mode) {
+        switch (mode) {
+            case Triangles:
+            case TriangleStrip:
+            case TriangleFan:
+                return new int[]{0, 1, 2};
+            case Quads:
+                return new int[]{0, 1, 2, 3};
+            case QuadStrip:
+                return new int[]{0, 1, 3, 2};
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Triangle surface with welded vertices, their error quadrics and the
+     * triangles adjacent to every vertex.
+     */
+    private static final class Surface {
+
+        private final int vertexCount;
+        private final double[] position;
+        private final float[] normal;
+        private final float[] color;
+        private final boolean[] colored;
+        private final double[] quadric;
+        private final boolean[] locked;
+        private final boolean[] removedVertex;
+        private final int[] stamp;
+        private final int[] mark;
+        private int markId;
+
+        private final int[][] adjacent;
+        private final int[] adjacentCount;
+
+        private int[] triangles;
+        private boolean[] removedTriangle;
+        private int triangleCount;
+        private int activeTriangles;
+
+        Surface(PositionHash positions, int expectedTriangles) {
+            vertexCount = positions.size();
+            position = new double[vertexCount * 3];
+            for (int ii = 0; ii < vertexCount; ii++) {
+                for (int jj = 0; jj < 3; jj++) {
+                    position[ii * 3 + jj] = positions.coordinate(ii, jj);
+                }
+            }
+            normal = new float[vertexCount * 3];
+            color = new float[vertexCount * 4];
+            colored = new boolean[vertexCount];
+            quadric = new double[vertexCount * 10];
+            locked = new boolean[vertexCount];
+            removedVertex = new boolean[vertexCount];
+            stamp = new int[vertexCount];
+            mark = new int[vertexCount];
+            adjacent = new int[vertexCount][];
+            adjacentCount = new int[vertexCount];
+            triangles = new int[Math.max(expectedTriangles, 1) * 3];
+        }
+
+        void addTriangle(int a, int b, int c) {
+            if (a == b || b == c || c == a) {
+                return;
+            }
+            if (triangleCount * 3 == triangles.length) {
+                triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            }
+            triangles[triangleCount * 3] = a;
+            triangles[triangleCount * 3 + 1] = b;
+            triangles[triangleCount * 3 + 2] = c;
+            triangleCount++;
+        }
+
+        /**
+         * Collapses the edges with the smallest error until the target is
+         * reached.
+         *
+         * @return true, if at least one triangle has been removed
+         */
+        boolean simplify(int targetTriangles) {
+            removedTriangle = new boolean[triangleCount];
+            activeTriangles = triangleCount;
+            if (triangleCount <= targetTriangles) {
+                return false;
+            }
+
+            EdgeCounter edges = new EdgeCounter(triangleCount * 3);
+            double[] plane = new double[4];
+            double[] faceNormal = new double[triangleCount * 3];
+            for (int t = 0; t < triangleCount; t++) {
+                // area weighted plane quadric of the triangle
+                double area = plane(t, plane);
+                if (area > 0.0) {
+                    System.arraycopy(plane, 0, faceNormal, t * 3, 3);
+                    for (int ii = 0; ii < 3; ii++) {
+                        addPlane(triangles[t * 3 + ii], plane, area);
+                    }
+                }
+            }
+            for (int t = 0; t < triangleCount; t++) {
+                for (int ii = 0; ii < 3; ii++) {
+                    int v = triangles[t * 3 + ii];
+                    int w = triangles[t * 3 + (ii + 1) % 3];
+                    addAdjacent(v, t);
+                    int other = edges.add(v, w, t);
+                    if (other >= 0 && isCrease(faceNormal, t, other)) {
+                        locked[v] = true;
+                        locked[w] = true;
+                    }
+                }
+            }
+
+            // only edges shared by exactly two triangles may be collapsed
+            PriorityQueue<Collapse> queue = new PriorityQueue<>();
+            for (int ii = 0; ii < edges.keys.length; ii++) {
+                long key = edges.keys[ii];
+                if (key != -1L && edges.counts[ii] != 2) {
+                    locked[(int) (key >>> 32)] = true;
+                    locked[(int) key] = true;
+                }
+            }
+            for (int ii = 0; ii < edges.keys.length; ii++) {
+                long key = edges.keys[ii];
+                if (key != -1L && edges.counts[ii] == 2) {
+                    Collapse collapse = candidate((int) (key >>> 32), (int) key);
+                    if (collapse != null) {
+                        queue.add(collapse);
+                    }
+                }
+            }
+
+            while (activeTriangles > targetTriangles && !queue.isEmpty()) {
+                Collapse c = queue.poll();
+                if (removedVertex[c.keep] || removedVertex[c.remove]
+                        || stamp[c.keep] != c.keepStamp || stamp[c.remove] != c.removeStamp) {
+                    continue;
+                }
+                if (!isManifold(c) || flips(c, c.keep, c.remove) || flips(c, c.remove, c.keep)) {
+                    continue;
+                }
+                collapse(c);
+                addCandidates(c.keep, queue);
+            }
+            return activeTriangles < triangleCount;
+        }
+
+        /**
+         * Checks whether two triangles meet at more than the crease angle.
+         * Degenerated triangles have no normal and never form a crease.
+         */
+        private static boolean isCrease(double[] faceNormal, int t0, int t1) {
+            double dot = 0.0;
+            double length0 = 0.0;
+            double length1 = 0.0;
+            for (int ii = 0; ii < 3; ii++) {
+                dot += faceNormal[t0 * 3 + ii] * faceNormal[t1 * 3 + ii];
+                length0 += faceNormal[t0 * 3 + ii] * faceNormal[t0 * 3 + ii];
+                length1 += faceNormal[t1 * 3 + ii] * faceNormal[t1 * 3 + ii];
+            }
+            return length0 > 0.0 && length1 > 0.0 && dot < CREASE_COS;
+        }
+
+        private Collapse candidate(int a, int b) {
+            if (locked[a] && locked[b]) {
+                return null;
+            }
+            if (locked[b]) {
+                int tmp = a;
+                a = b;
+                b = tmp;
+            }
+            double[] q = new double[10];
+            for (int ii = 0; ii < 10; ii++) {
+                q[ii] = quadric[a * 10 + ii] + quadric[b * 10 + ii];
+            }
+            // a locked vertex keeps its position, otherwise the cheapest of
+            // both end points and the midpoint is used
+            Collapse best = new Collapse(a, b, stamp[a], stamp[b], 0.0f,
+                    position[a * 3], position[a * 3 + 1], position[a * 3 + 2], q);
+            if (!locked[a]) {
+                Collapse other = new Collapse(a, b, stamp[a], stamp[b], 1.0f,
+                        position[b * 3], position[b * 3 + 1], position[b * 3 + 2], q);
+                if (other.cost < best.cost) {
+                    best = other;
+                }
+                other = new Collapse(a, b, stamp[a], stamp[b], 0.5f,
+                        0.5 * (position[a * 3] + position[b * 3]),
+                        0.5 * (position[a * 3 + 1] + position[b * 3 + 1]),
+                        0.5 * (position[a * 3 + 2] + position[b * 3 + 2]), q);
+                if (other.cost < best.cost) {
+                    best = other;
+                }
+            }
+            return best;
+        }
+
+        private void addCandidates(int v, PriorityQueue<Collapse> queue) {
+            markId++;
+            mark[v] = markId;
+            for (int ii = 0; ii < adjacentCount[v]; ii++) {
+                int t = adjacent[v][ii];
+                for (int jj = 0; jj < 3; jj++) {
+                    int other = triangles[t * 3 + jj];
+                    if (mark[other] != markId) {
+                        mark[other] = markId;
+                        Collapse collapse = candidate(v, other);
+                        if (collapse != null) {
+                            queue.add(collapse);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * An interior edge shares exactly the two opposite vertices with its
+         * neighbourhood, otherwise the collapse would pinch the surface.
+         */
+        private boolean isManifold(Collapse c) {
+            markId++;
+            for (int ii = 0; ii < adjacentCount[c.keep]; ii++) {
+                int t = adjacent[c.keep][ii];
+                for (int jj = 0; jj < 3; jj++) {
+                    mark[triangles[t * 3 + jj]] = markId;
+                }
+            }
+            int common = 0;
+            int commonId = ++markId;
+            for (int ii = 0; ii < adjacentCount[c.remove]; ii++) {
+                int t = adjacent[c.remove][ii];
+                for (int jj = 0; jj < 3; jj++) {
+                    int v = triangles[t * 3 + jj];
+                    if (v != c.keep && v != c.remove && mark[v] == commonId - 1) {
+                        mark[v] = commonId;
+                        common++;
+                    }
+                }
+            }
+            return common <= 2;
+        }
+
+        /**
+         * Checks whether moving vertex v to the new position turns over one
+         * of its triangles which is not removed by the collapse.
+         */
+        private boolean flips(Collapse c, int v, int other) {
+            double[] oldNormal = new double[3];
+            double[] newNormal = new double[3];
+            for (int ii = 0; ii < adjacentCount[v]; ii++) {
+                int t = adjacent[v][ii];
+                int i0 = triangles[t * 3];
+                int i1 = triangles[t * 3 + 1];
+                int i2 = triangles[t * 3 + 2];
+                if (i0 == other || i1 == other || i2 == other) {
+                    continue;
+                }
+                cross(i0, i1, i2, -1, null, oldNormal);
+                cross(i0, i1, i2, v, c.position, newNormal);
+                if (oldNormal[0] * newNormal[0] + oldNormal[1] * newNormal[1] + oldNormal[2] * newNormal[2] <= 0.0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void collapse(Collapse c) {
+            int a = c.keep;
+            int b = c.remove;
+            System.arraycopy(c.position, 0, position, a * 3, 3);
+            if (colored[a] && colored[b]) {
+                for (int ii = 0; ii < 4; ii++) {
+                    color[a * 4 + ii] = color[a * 4 + ii] * (1.0f - c.t) + color[b * 4 + ii] * c.t;
+                }
+            }
+            for (int ii = 0; ii < 3; ii++) {
+                normal[a * 3 + ii] += normal[b * 3 + ii];
+            }
+            for (int ii = 0; ii < 10; ii++) {
+                quadric[a * 10 + ii] += quadric[b * 10 + ii];
+            }
+
+            int[] trisOfB = Arrays.copyOf(adjacent[b], adjacentCount[b]);
+            for (int t : trisOfB) {
+                boolean shared = false;
+                for (int jj = 0; jj < 3; jj++) {
+                    if (triangles[t * 3 + jj] == a) {
+                        shared = true;
+                    }
+                }
+                if (shared) {
+                    removedTriangle[t] = true;
+                    activeTriangles--;
+                    for (int jj = 0; jj < 3; jj++) {
+                        int v = triangles[t * 3 + jj];
+                        if (v != b) {
+                            removeAdjacent(v, t);
+                        }
+                    }
+                } else {
+                    for (int jj = 0; jj < 3; jj++) {
+                        if (triangles[t * 3 + jj] == b) {
+                            triangles[t * 3 + jj] = a;
+                        }
+                    }
+                    addAdjacent(a, t);
+                }
+            }
+            adjacentCount[b] = 0;
+            adjacent[b] = null;
+            removedVertex[b] = true;
+            stamp[a]++;
+            stamp[b]++;
+        }
+
+        /**
+         * Computes the unit plane of the triangle.
+         *
+         * @return area of the triangle
+         */
+        private double plane(int t, double[] plane) {
+            int i0 = triangles[t * 3];
+            cross(i0, triangles[t * 3 + 1], triangles[t * 3 + 2], -1, null, plane);
+            double length = Math.sqrt(plane[0] * plane[0] + plane[1] * plane[1] + plane[2] * plane[2]);
+            if (length == 0.0) {
+                return 0.0;
+            }
+            plane[0] /= length;
+            plane[1] /= length;
+            plane[2] /= length;
+            plane[3] = -(plane[0] * position[i0 * 3] + plane[1] * position[i0 * 3 + 1] + plane[2] * position[i0 * 3 + 2]);
+            return 0.5 * length;
+        }
+
+        private void addPlane(int v, double[] p, double weight) {
+            int o = v * 10;
+            quadric[o] += weight * p[0] * p[0];
+            quadric[o + 1] += weight * p[0] * p[1];
+            quadric[o + 2] += weight * p[0] * p[2];
+            quadric[o + 3] += weight * p[0] * p[3];
+            quadric[o + 4] += weight * p[1] * p[1];
+            quadric[o + 5] += weight * p[1] * p[2];
+            quadric[o + 6] += weight * p[1] * p[3];
+            quadric[o + 7] += weight * p[2] * p[2];
+            quadric[o + 8] += weight * p[2] * p[3];
+            quadric[o + 9] += weight * p[3] * p[3];
+        }
+
+        /**
+         * Cross product of the edges of the triangle. The position of vertex
+         * "moved" is replaced by the given position.
+         */
+        private void cross(int i0, int i1, int i2, int moved, double[] pos, double[] store) {
+            double[] p0 = point(i0, moved, pos);
+            double[] p1 = point(i1, moved, pos);
+            double[] p2 = point(i2, moved, pos);
+            double ux = p1[0] - p0[0];
+            double uy = p1[1] - p0[1];
+            double uz = p1[2] - p0[2];
+            double vx = p2[0] - p0[0];
+            double vy = p2[1] - p0[1];
+            double vz = p2[2] - p0[2];
+            store[0] = uy * vz - uz * vy;
+            store[1] = uz * vx - ux * vz;
+            store[2] = ux * vy - uy * vx;
+        }
+
+        private double[] point(int v, int moved, double[] pos) {
+            if (v == moved) {
+                return pos;
+            }
+            return new double[]{position[v * 3], position[v * 3 + 1], position[v * 3 + 2]};
+        }
+
+        private void addAdjacent(int v, int t) {
+            if (adjacent[v] == null) {
+                adjacent[v] = new int[6];
+            } else if (adjacentCount[v] == adjacent[v].length) {
+                adjacent[v] = Arrays.copyOf(adjacent[v], adjacentCount[v] * 2);
+            }
+            adjacent[v][adjacentCount[v]++] = t;
+        }
+
+        private void removeAdjacent(int v, int t) {
+            for (int ii = 0; ii < adjacentCount[v]; ii++) {
+                if (adjacent[v][ii] == t) {
+                    adjacent[v][ii] = adjacent[v][--adjacentCount[v]];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Writes the remaining triangles as non-indexed triangle list. The
+         * triangles are oriented along the original normals, if there are any.
+         */
+        void writeTo(MeshData data, boolean hasNormals, boolean hasColors) {
+            FloatBuffer vertices = BufferUtils.createVector3Buffer(activeTriangles * 3);
+            FloatBuffer normals = BufferUtils.createVector3Buffer(activeTriangles * 3);
+            FloatBuffer colors = hasColors ? BufferUtils.createColorBuffer(activeTriangles * 3) : null;
+            double[] n = new double[3];
+            int[] tri = new int[3];
+            for (int t = 0; t < triangleCount; t++) {
+                if (removedTriangle[t]) {
+                    continue;
+                }
+                tri[0] = triangles[t * 3];
+                tri[1] = triangles[t * 3 + 1];
+                tri[2] = triangles[t * 3 + 2];
+                cross(tri[0], tri[1], tri[2], -1, null, n);
+                if (hasNormals) {
+                    double dot = 0.0;
+                    for (int ii = 0; ii < 3; ii++) {
+                        for (int jj = 0; jj < 3; jj++) {
+                            dot += n[jj] * normal[tri[ii] * 3 + jj];
+                        }
+                    }
+                    if (dot < 0.0) {
+                        int tmp = tri[1];
+                        tri[1] = tri[2];
+                        tri[2] = tmp;
+                        n[0] = -n[0];
+                        n[1] = -n[1];
+                        n[2] = -n[2];
+                    }
+                }
+                double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+                if (length > 0.0) {
+                    n[0] /= length;
+                    n[1] /= length;
+                    n[2] /= length;
+                }
+                for (int v : tri) {
+                    vertices.put((float) position[v * 3]).put((float) position[v * 3 + 1]).put((float) position[v * 3 + 2]);
+                    normals.put((float) n[0]).put((float) n[1]).put((float) n[2]);
+                    if (colors != null) {
+                        colors.put(color, v * 4, 4);
+                    }
+                }
+            }
+            vertices.rewind();
+            normals.rewind();
+            data.setVertexBuffer(vertices);
+            data.setNormalBuffer(normals);
+            if (colors != null) {
+                colors.rewind();
+                data.setColorBuffer(colors);
+            }
+            data.setIndexMode(IndexMode.Triangles);
+        }
+    }
+
+    /**
+     * Collapse of the edge between two vertices into one position.
+     */
+    private static final class Collapse implements Comparable<Collapse> {
+
+        private final int keep;
+        private final int remove;
+        private final int keepStamp;
+        private final int removeStamp;
+        private final float t;
+        private final double[] position;
+        private final double cost;
+
+        Collapse(int keep, int remove, int keepStamp, int removeStamp, float t, double x, double y, double z, double[] q) {
+            this.keep = keep;
+            this.remove = remove;
+            this.keepStamp = keepStamp;
+            this.removeStamp = removeStamp;
+            this.t = t;
+            this.position = new double[]{x, y, z};
+            this.cost = q[0] * x * x + 2.0 * q[1] * x * y + 2.0 * q[2] * x * z + 2.0 * q[3] * x
+                    + q[4] * y * y + 2.0 * q[5] * y * z + 2.0 * q[6] * y
+                    + q[7] * z * z + 2.0 * q[8] * z + q[9];
+        }
+
+        @Override
+        public int compareTo(Collapse o) {
+            return Double.compare(cost, o.cost);
+        }
+    }
+
+    /**
+     * Open addressing hash map counting the triangles of every undirected
+     * edge.
+     */
+    private static final class EdgeCounter {
+
+        private final long[] keys;
+        private final int[] counts;
+        private final int[] firstTriangles;
+
+        EdgeCounter(int expected) {
+            keys = new long[Integer.highestOneBit(Math.max(expected, 2) * 2) * 2];
+            counts = new int[keys.length];
+            firstTriangles = new int[keys.length];
+            Arrays.fill(keys, -1L);
+        }
+
+        /**
+         * Counts the edge of the triangle.
+         *
+         * @return the first triangle of the edge, if the triangle is the
+         * second one, otherwise -1
+         */
+        int add(int a, int b, int t) {
+            long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+            int mask = keys.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 35) & mask;
+            while (keys[slot] != -1L && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            if (counts[slot]++ == 0) {
+                firstTriangles[slot] = t;
+                return -1;
+            }
+            return counts[slot] == 2 ? firstTriangles[slot] : -1;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.Camera.ProjectionMode;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.Spatial;
+import de.view3d.View3DProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node holding a mesh and decimated versions of it. Only one level is drawn.
+ * The level is chosen from the projected size of the node on the screen and
+ * the net quality of the {@link View3DProperties}, so that a level is drawn
+ * with approximately {@link #PIXELS_PER_TRIANGLE} pixels per triangle at
+ * quality 1.0.
+ *
+ * @author Andreas Hauffe
+ */
+public class MeshLodNode extends Node {
+
+    /**
+     * Meshes and levels with fewer triangles are not decimated any further.
+     */
+    public static final int MIN_TRIANGLES = 2048;
+
+    public static final int MAX_LEVELS = 4;
+
+    public static final double PIXELS_PER_TRIANGLE = 8.0;
+
+    /**
+     * Factor by which the triangle budget is reduced during interaction.
+     */
+    public static final double REDUCED_DETAIL = 16.0;
+
+    private final Mesh mesh;
+    private final int[] triangleCounts;
+    private int activeLevel = 0;
+    private boolean reducedDetail = false;
+
+    /**
+     * Creates the node. The mesh and the levels are attached to it.
+     *
+     * @param mesh the original mesh
+     * @param levels the decimated levels with decreasing number of triangles
+     */
+    @SuppressWarnings("this-escape")
+    public MeshLodNode(Mesh mesh, List<Mesh> levels) {
+        super(mesh.getName() + "LOD");
+        this.mesh = mesh;
+        triangleCounts = new int[levels.size() + 1];
+        triangleCounts[0] = MeshDecimator.getTriangleCount(mesh);
+        attachChild(mesh);
+        for (int ii = 0; ii < levels.size(); ii++) {
+            triangleCounts[ii + 1] = MeshDecimator.getTriangleCount(levels.get(ii));
+            attachChild(levels.get(ii));
+        }
+    }
+
+    /**
+     * Decimates the mesh step by step to a quarter of the triangles of the
+     * previous level.
+     *
+     * @param mesh the mesh
+     * @return the decimated levels, empty if the mesh is too small or cannot
+     * be decimated
+     */
+    public static List<Mesh> createLevels(Mesh mesh) {
+        List<Mesh> levels = new ArrayList<>();
+        if (!MeshDecimator.isDecimatable(mesh)) {
+            return levels;
+        }
+        Mesh level = mesh;
+        int triangles = MeshDecimator.getTriangleCount(mesh);
+        while (levels.size() < MAX_LEVELS && triangles >= MIN_TRIANGLES) {
+            Mesh next = MeshDecimator.decimate(level, triangles / 4);
+            if (next == null) {
+                break;
+            }
+            int nextTriangles = MeshDecimator.getTriangleCount(next);
+            if (nextTriangles > triangles * 3 / 4) {
+                // the boundary prevents a substantial reduction
+                break;
+            }
+            next.setName(mesh.getName() + "LOD" + (levels.size() + 1));
+            levels.add(next);
+            level = next;
+            triangles = nextTriangles;
+        }
+        return levels;
+    }
+
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    public int getLevelCount() {
+        return triangleCounts.length;
+    }
+
+    public int getActiveLevel() {
+        return activeLevel;
+    }
+
+    public boolean isReducedDetail() {
+        return reducedDetail;
+    }
+
+    /**
+     * Sets whether coarser levels should be drawn, e.g. while the view is
+     * rotated.
+     *
+     * @param reducedDetail true, if the triangle budget should be reduced by
+     * {@link #REDUCED_DETAIL}
+     */
+    public void setReducedDetail(boolean reducedDetail) {
+        this.reducedDetail = reducedDetail;
+    }
+
+    @Override
+    public void draw(final Renderer r) {
+        final Camera cam = Camera.getCurrentCamera();
+        if (cam != null) {
+            activeLevel = selectLevel(cam);
+        }
+        final Spatial child = activeLevel < getNumberOfChildren() ? getChild(activeLevel) : null;
+        if (child != null) {
+            child.onDraw(r);
+        }
+    }
+
+    /**
+     * Selects the coarsest level which still has at least as many triangles
+     * as the screen area of the node allows.
+     *
+     * @param cam the camera
+     * @return the level
+     */
+    private int selectLevel(Camera cam) {
+        BoundingVolume bound = getWorldBound();
+        if (bound == null || cam.getHeight() <= 0) {
+            return 0;
+        }
+        double height = cam.getFrustumTop() - cam.getFrustumBottom();
+        if (cam.getProjectionMode() != ProjectionMode.Parallel) {
+            double depth = cam.getDirection().dot(bound.getCenter().subtract(cam.getLocation(), null));
+            if (depth <= cam.getFrustumNear()) {
+                return 0;
+            }
+            height *= depth / cam.getFrustumNear();
+        }
+        if (height <= 0.0) {
+            return 0;
+        }
+        double pixels = 2.0 * bound.getRadius() / height * cam.getHeight();
+        double quality = View3DProperties.getDefault().getNetQuality();
+        double budget = pixels * pixels * quality * quality / PIXELS_PER_TRIANGLE;
+        if (reducedDetail) {
+            budget /= REDUCED_DETAIL;
+        }
+
+        int level = 0;
+        while (level + 1 < triangleCounts.length && triangleCounts[level + 1] >= budget) {
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.TextureTracker;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.framework.jogl.CapsUtil;
+import com.ardor3d.framework.jogl.JoglCanvasRenderer;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.util.geom.BufferUtils;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.GLDrawableFactory;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Renders a scene into an offscreen drawable without any window, e.g. for
+ * the generation of report images on a server. The drawable and its GL
+ * context are created once and reused for every image, a change of the size
+ * only resizes the drawable. On Linux servers without graphics hardware the
+ * drawable is provided by Mesa's software rasterizer.
+ *
+ * All methods have to be called from the same thread.
+ *
+ * @author Andreas Hauffe
+ */
+public class OffscreenRenderer {
+
+    private final GLOffscreenAutoDrawable drawable;
+    private final JoglCanvasRenderer canvasRenderer;
+    private ByteBuffer pixels;
+
+    /**
+     * Creates the offscreen drawable and its context.
+     *
+     * @param scene scene to be rendered
+     * @param width width of the images in pixels
+     * @param height height of the images in pixels
+     */
+    public OffscreenRenderer(Scene scene, int width, int height) {
+        final DisplaySettings settings = new DisplaySettings(width, height, 24, 0, 0, 24, 0, 0, false, false);
+        final CapsUtil capsUtil = new CapsUtil();
+        final GLCapabilities caps = capsUtil.getCapsForSettings(settings, false, false, false, true);
+        // the pixels are read before a swap would happen
+        caps.setDoubleBuffered(false);
+        drawable = GLDrawableFactory.getFactory(capsUtil.getProfile()).createOffscreenAutoDrawable(null, caps, null, width, height);
+        // creates the context
+        drawable.display();
+
+        canvasRenderer = new JoglCanvasRenderer(scene);
+        canvasRenderer.setContext(drawable.getContext());
+        canvasRenderer.init(settings, false);
+    }
+
+    public Camera getCamera() {
+        return canvasRenderer.getCamera();
+    }
+
+    public int getWidth() {
+        return drawable.getSurfaceWidth();
+    }
+
+    public int getHeight() {
+        return drawable.getSurfaceHeight();
+    }
+
+    /**
+     * Resizes the drawable. The camera has to be adapted by the caller.
+     *
+     * @param width width of the images in pixels
+     * @param height height of the images in pixels
+     */
+    public void setSize(int width, int height) {
+        if (width != getWidth() || height != getHeight()) {
+            drawable.setSurfaceSize(width, height);
+        }
+    }
+
+    /**
+     * Renders the scene and returns the image.
+     *
+     * @return the rendered image
+     */
+    public BufferedImage render() {
+        final int width = getWidth();
+        final int height = getHeight();
+        canvasRenderer.makeCurrentContext();
+        try {
+            canvasRenderer.draw();
+
+            if (pixels == null || pixels.capacity() < 4 * width * height) {
+                pixels = BufferUtils.createByteBuffer(4 * width * height);
+            }
+            pixels.clear();
+            final GL gl = GLContext.getCurrentGL();
+            gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+            gl.glReadPixels(0, 0, width, height, GL.GL_BGRA, GL.GL_UNSIGNED_BYTE, pixels);
+        } finally {
+            canvasRenderer.releaseCurrentContext();
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        // little endian BGRA is ARGB, GL rows start at the bottom
+        IntBuffer argb = pixels.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int row = 0; row < height; row++) {
+            argb.get(row * width, data, (height - row - 1) * width, width);
+        }
+        return image;
+    }
+
+    /**
+     * Destroys the drawable and its context.
+     */
+    public void dispose() {
+        TextureTracker.contextDestroyed(canvasRenderer.getContext());
+        ContextManager.removeContext(canvasRenderer.getContext());
+        drawable.destroy();
+    }
+}
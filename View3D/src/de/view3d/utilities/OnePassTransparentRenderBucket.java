@@ -0,0 +1,47 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.queue.TransparentRenderBucket;
+
+/**
+ * Render bucket which draws transparent meshes sorted back to front in a
+ * single pass, instead of separate passes for the back and the front faces.
+ *
+ * @author Andreas Hauffe
+ */
+public class OnePassTransparentRenderBucket extends TransparentRenderBucket {
+
+    @Override
+    public void render(final Renderer renderer) {
+        for (int ii = 0; ii < _currentListSize; ii++) {
+            if (_currentList[ii] != null) {
+                _currentList[ii].draw(renderer);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.Mesh;
+import java.nio.FloatBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the bounding boxes of a list of meshes with a fork-join reduction
+ * over their vertex buffers. The box of each mesh and the union of all boxes
+ * are returned. The meshes are not modified, as they may be part of the
+ * rendered scene. Their model bounds are set by {@link #applyModelBounds()},
+ * which has to be called by the thread owning the scene.
+ *
+ * @author Andreas Hauffe
+ */
+public class ParallelBounds {
+
+    /**
+     * Number of vertices below which a range is processed sequentially.
+     */
+    private static final int THRESHOLD = 1 << 15;
+
+    private final double xmin;
+    private final double ymin;
+    private final double zmin;
+    private final double xmax;
+    private final double ymax;
+    private final double zmax;
+    private final boolean empty;
+    private final Map<Mesh, BoundingBox> modelBounds;
+
+    private ParallelBounds(double[] extent, Map<Mesh, BoundingBox> modelBounds) {
+        this.modelBounds = modelBounds;
+        empty = extent[0] > extent[3];
+        xmin = empty ? 0.0 : extent[0];
+        ymin = empty ? 0.0 : extent[1];
+        zmin = empty ? 0.0 : extent[2];
+        xmax = empty ? 0.0 : extent[3];
+        ymax = empty ? 0.0 : extent[4];
+        zmax = empty ? 0.0 : extent[5];
+    }
+
+    /**
+     * Computes a BoundingBox of every mesh and the union of all boxes in the
+     * local coordinates of the meshes. Meshes without vertices do not
+     * contribute.
+     *
+     * @param meshes the meshes
+     * @return the bounds
+     */
+    public static ParallelBounds compute(List<Mesh> meshes) {
+        Mesh[] array = meshes.toArray(new Mesh[0]);
+        double[][] meshExtents = new double[array.length][];
+        double[] extent = ForkJoinPool.commonPool().invoke(new MeshRangeTask(array, meshExtents, 0, array.length));
+        Map<Mesh, BoundingBox> modelBounds = new IdentityHashMap<>();
+        for (int ii = 0; ii < array.length; ii++) {
+            double[] e = meshExtents[ii];
+            if (e[0] <= e[3]) {
+                modelBounds.put(array[ii], new BoundingBox(
+                        new Vector3((e[0] + e[3]) / 2.0, (e[1] + e[4]) / 2.0, (e[2] + e[5]) / 2.0),
+                        (e[3] - e[0]) / 2.0, (e[4] - e[1]) / 2.0, (e[5] - e[2]) / 2.0));
+            } else {
+                modelBounds.put(array[ii], null);
+            }
+        }
+        return new ParallelBounds(extent, modelBounds);
+    }
+
+    /**
+     * @return the box of every mesh in its local coordinates, null for meshes
+     * without vertices
+     */
+    public Map<Mesh, BoundingBox> getModelBounds() {
+        return Collections.unmodifiableMap(modelBounds);
+    }
+
+    /**
+     * Sets the computed boxes as model bounds of the meshes. Has to be called
+     * by the thread owning the scene, as this marks the world bounds of the
+     * parents of attached meshes as dirty.
+     */
+    public void applyModelBounds() {
+        for (Map.Entry<Mesh, BoundingBox> entry : modelBounds.entrySet()) {
+            if (entry.getValue() != null) {
+                entry.getKey().setModelBound(entry.getValue(), false);
+            } else {
+                entry.getKey().setModelBound(new BoundingBox());
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public double getXmin() {
+        return xmin;
+    }
+
+    public double getYmin() {
+        return ymin;
+    }
+
+    public double getZmin() {
+        return zmin;
+    }
+
+    public double getXmax() {
+        return xmax;
+    }
+
+    public double getYmax() {
+        return ymax;
+    }
+
+    public double getZmax() {
+        return zmax;
+    }
+
+    private static double[] emptyExtent() {
+        return new double[]{Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+            -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    }
+
+    private static double[] union(double[] a, double[] b) {
+        for (int ii = 0; ii < 3; ii++) {
+            a[ii] = Math.min(a[ii], b[ii]);
+            a[ii + 3] = Math.max(a[ii + 3], b[ii + 3]);
+        }
+        return a;
+    }
+
+    private static int vertexCount(Mesh mesh) {
+        FloatBuffer vertices = mesh.getMeshData().getVertexBuffer();
+        return vertices == null ? 0 : vertices.limit() / 3;
+    }
+
+    private static class MeshRangeTask extends RecursiveTask<double[]> {
+
+        private final Mesh[] meshes;
+        private final double[][] meshExtents;
+        private final int from;
+        private final int to;
+
+        MeshRangeTask(Mesh[] meshes, double[][] meshExtents, int from, int to) {
+            this.meshes = meshes;
+            this.meshExtents = meshExtents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from == 1) {
+                int count = vertexCount(meshes[from]);
+                double[] extent = count == 0 ? emptyExtent()
+                        : new VertexRangeTask(meshes[from].getMeshData().getVertexBuffer(), 0, count).compute();
+                meshExtents[from] = extent;
+                return extent.clone();
+            }
+            long vertices = 0;
+            for (int ii = from; ii < to && vertices < THRESHOLD; ii++) {
+                vertices += vertexCount(meshes[ii]);
+            }
+            if (vertices < THRESHOLD) {
+                double[] extent = emptyExtent();
+                for (int ii = from; ii < to; ii++) {
+                    int count = vertexCount(meshes[ii]);
+                    meshExtents[ii] = count == 0 ? emptyExtent()
+                            : VertexRangeTask.scan(meshes[ii].getMeshData().getVertexBuffer(), 0, count);
+                    union(extent, meshExtents[ii]);
+                }
+                return extent;
+            }
+            int mid = (from + to) >>> 1;
+            MeshRangeTask left = new MeshRangeTask(meshes, meshExtents, from, mid);
+            left.fork();
+            double[] right = new MeshRangeTask(meshes, meshExtents, mid, to).compute();
+            return union(right, left.join());
+        }
+    }
+
+    private static class VertexRangeTask extends RecursiveTask<double[]> {
+
+        private final FloatBuffer vertices;
+        private final int from;
+        private final int to;
+
+        VertexRangeTask(FloatBuffer vertices, int from, int to) {
+            this.vertices = vertices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= THRESHOLD) {
+                return scan(vertices, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            VertexRangeTask left = new VertexRangeTask(vertices, from, mid);
+            left.fork();
+            double[] right = new VertexRangeTask(vertices, mid, to).compute();
+            return union(right, left.join());
+        }
+
+        /**
+         * Scans the vertices with absolute gets, so that the position of the
+         * (possibly shared) buffer is not touched.
+         */
+        static double[] scan(FloatBuffer vertices, int from, int to) {
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+            for (int ii = from * 3, end = to * 3; ii < end; ii += 3) {
+                float x = vertices.get(ii);
+                float y = vertices.get(ii + 1);
+                float z = vertices.get(ii + 2);
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                minZ = Math.min(minZ, z);
+                maxZ = Math.max(maxZ, z);
+            }
+            return new double[]{minX, minY, minZ, maxX, maxY, maxZ};
+        }
+    }
+}
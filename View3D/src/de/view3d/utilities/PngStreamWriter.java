@@ -0,0 +1,176 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8 bit RGB PNG image row by row, so that the image never has to be
+ * held in memory as a whole. The rows are written from top to bottom with the
+ * "Up" filter.
+ *
+ * @author Andreas Hauffe
+ */
+public class PngStreamWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+    // maximum size of an IDAT chunk
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final DeflaterOutputStream idat;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] previous;
+    private final byte[] filtered;
+    private int rows = 0;
+
+    public PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        previous = new byte[3 * width];
+        filtered = new byte[3 * width + 1];
+
+        out.write(SIGNATURE);
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height);
+        header.put((byte) 8);   // bit depth
+        header.put((byte) 2);   // color type RGB
+        header.put((byte) 0);   // compression
+        header.put((byte) 0);   // filter
+        header.put((byte) 0);   // no interlace
+        writeChunk("IHDR", header.array(), header.position());
+
+        idat = new DeflaterOutputStream(new ChunkOutputStream(), deflater, CHUNK_SIZE);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Writes the next row.
+     *
+     * @param rgb array with the RGB values of the row
+     * @param offset offset of the row in the array
+     * @throws IOException if the row could not be written
+     */
+    public void writeRow(byte[] rgb, int offset) throws IOException {
+        if (rows >= height) {
+            throw new IllegalStateException("All " + height + " rows are already written");
+        }
+        filtered[0] = 2;
+        for (int ii = 0; ii < previous.length; ii++) {
+            byte value = rgb[offset + ii];
+            filtered[ii + 1] = (byte) (value - previous[ii]);
+            previous[ii] = value;
+        }
+        idat.write(filtered);
+        rows++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows != height) {
+                throw new IOException("Only " + rows + " of " + height + " rows written");
+            }
+            idat.finish();
+            idat.flush();
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        ByteBuffer frame = ByteBuffer.allocate(8);
+        frame.putInt(length).put(typeBytes);
+        out.write(frame.array());
+        out.write(data, 0, length);
+        frame.clear();
+        frame.putInt((int) crc.getValue());
+        out.write(frame.array(), 0, 4);
+    }
+
+    /**
+     * Collects the compressed data and writes it as IDAT chunks.
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size = 0;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int count = Math.min(len, buffer.length - size);
+                System.arraycopy(b, off, buffer, size, count);
+                size += count;
+                off += count;
+                len -= count;
+                if (size == buffer.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) {
+                writeChunk("IDAT", buffer, size);
+                size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.util.geom.BufferUtils;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash of vertex positions returning a unique id for every
+ * distinct position. Used to weld vertices with identical positions. If the
+ * hash is created with attributes, e.g. colors and normals, vertices are
+ * only welded if their attributes are identical too.
+ *
+ * @author Andreas Hauffe
+ */
+final class PositionHash {
+
+    private final float[] coords;
+    private final int attributeCount;
+    private final float[] attributes;
+    private int[] table;
+    private int size;
+
+    PositionHash(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param capacity maximum number of distinct vertices
+     * @param attributeCount number of attribute values of every vertex
+     */
+    PositionHash(int capacity, int attributeCount) {
+        coords = new float[capacity * 3];
+        this.attributeCount = attributeCount;
+        attributes = new float[capacity * attributeCount];
+        table = new int[Integer.highestOneBit(Math.max(capacity, 2) * 2) * 2];
+        Arrays.fill(table, -1);
+    }
+
+    int add(float x, float y, float z) {
+        return add(x, y, z, null);
+    }
+
+    /**
+     * @param values the attribute values of the vertex, only used if the
+     * hash has been created with attributes. -0.0f is replaced by 0.0f.
+     * @return id of the vertex
+     */
+    int add(float x, float y, float z, float[] values) {
+        // map -0.0f to 0.0f, they are equal but have different bits
+        x += 0.0f;
+        y += 0.0f;
+        z += 0.0f;
+        int mask = table.length - 1;
+        int hash = Float.floatToIntBits(x) * 31 * 31 + Float.floatToIntBits(y) * 31 + Float.floatToIntBits(z);
+        for (int ii = 0; ii < attributeCount; ii++) {
+            values[ii] += 0.0f;
+            hash = hash * 31 + Float.floatToIntBits(values[ii]);
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] >= 0) {
+            int id = table[slot];
+            if (coords[id * 3] == x && coords[id * 3 + 1] == y && coords[id * 3 + 2] == z
+                    && (attributeCount == 0 || Arrays.equals(attributes, id * attributeCount,
+                            (id + 1) * attributeCount, values, 0, attributeCount))) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = size++;
+        coords[id * 3] = x;
+        coords[id * 3 + 1] = y;
+        coords[id * 3 + 2] = z;
+        for (int ii = 0; ii < attributeCount; ii++) {
+            attributes[id * attributeCount + ii] = values[ii];
+        }
+        table[slot] = id;
+        return id;
+    }
+
+    int size() {
+        return size;
+    }
+
+    float coordinate(int id, int axis) {
+        return coords[id * 3 + axis];
+    }
+
+    FloatBuffer toBuffer() {
+        FloatBuffer buffer = BufferUtils.createVector3Buffer(size);
+        buffer.put(coords, 0, size * 3);
+        buffer.rewind();
+        return buffer;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import org.openide.util.Exceptions;
+
+/**
+ * Renders the frames of all views from one shared thread. A view only gets a
+ * frame, if it is visible, has requested one and its frame is due. The
+ * focused view is served first and at its full frame rate, all other views
+ * are throttled to a fraction of it. Among the other views the most overdue
+ * one is served. A view in the background gets its turn even if the focused
+ * view is always due, as soon as its frame is late by a few periods of the
+ * focused view.
+ *
+ * @author Andreas Hauffe
+ */
+public class RenderScheduler {
+
+    /**
+     * A view rendered by the scheduler. All methods except isFrameRequested
+     * and isVisible are called on the render thread.
+     */
+    public interface Client {
+
+        void init();
+
+        boolean isFrameRequested();
+
+        boolean isVisible();
+
+        FramePacer getFramePacer();
+
+        void renderFrame();
+
+        void dispose();
+    }
+
+    // views in the background are rendered with every n-th frame period
+    private static final int BACKGROUND_PERIODS = 4;
+
+    private static final RenderScheduler instance = new RenderScheduler();
+
+    // additions and removals of views, applied in order by the render thread
+    private final ConcurrentLinkedQueue<Runnable> changes = new ConcurrentLinkedQueue<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private volatile Client focused;
+    private volatile Thread thread;
+
+    private RenderScheduler() {
+    }
+
+    public static RenderScheduler getDefault() {
+        return instance;
+    }
+
+    /**
+     * Adds a view. Its init method is called by the render thread before the
+     * first frame.
+     *
+     * @param client view to be rendered
+     */
+    public synchronized void add(Client client) {
+        changes.add(() -> addEntry(client));
+        if (thread == null) {
+            thread = new Thread(this::run, "View3D Renderer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        wakeUp();
+    }
+
+    /**
+     * Removes a view. Its dispose method is called by the render thread after
+     * its last frame.
+     *
+     * @param client view to be removed
+     */
+    public void remove(Client client) {
+        changes.add(() -> removeEntry(client));
+        if (focused == client) {
+            focused = null;
+        }
+        wakeUp();
+    }
+
+    /**
+     * Marks the view the user works with, e.g. after mouse input.
+     *
+     * @param client focused view
+     */
+    public void setFocused(Client client) {
+        focused = client;
+    }
+
+    /**
+     * Tells the render thread that a view requested a frame.
+     */
+    public void wakeUp() {
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Runnable change;
+            while ((change = changes.poll()) != null) {
+                change.run();
+            }
+
+            Client focusedClient = focused;
+            Entry focusedEntry = null;
+            Entry overdueEntry = null;
+            long overdueDelay = 0;
+            long minDelay = Long.MAX_VALUE;
+            for (Entry entry : entries) {
+                if (!entry.client.isFrameRequested() || !entry.client.isVisible()) {
+                    entry.idle = true;
+                    continue;
+                }
+                FramePacer pacer = entry.client.getFramePacer();
+                if (entry.idle) {
+                    // the view was idle, so its frame is due right now
+                    pacer.reset();
+                    entry.idle = false;
+                }
+                long delay = pacer.getDelayNanos();
+                if (delay <= 0) {
+                    if (entry.client == focusedClient) {
+                        focusedEntry = entry;
+                    } else if (overdueEntry == null || delay < overdueDelay) {
+                        overdueEntry = entry;
+                        overdueDelay = delay;
+                    }
+                }
+                minDelay = Math.min(minDelay, delay);
+            }
+
+            Entry next = focusedEntry;
+            if (next == null || (overdueEntry != null
+                    && -overdueDelay >= BACKGROUND_PERIODS * next.client.getFramePacer().getPeriodNanos())) {
+                // the focused view must not starve the other views
+                next = overdueEntry;
+            }
+
+            if (next != null) {
+                boolean background = focusedClient != null && next.client != focusedClient;
+                next.client.getFramePacer().startFrame(background ? BACKGROUND_PERIODS : 1);
+                try {
+                    next.client.renderFrame();
+                } catch (RuntimeException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
+            } else if (minDelay == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, minDelay);
+            }
+        }
+    }
+
+    private void addEntry(Client client) {
+        try {
+            client.init();
+            entries.add(new Entry(client));
+        } catch (RuntimeException ex) {
+            Exceptions.printStackTrace(ex);
+            // the view gets its scene back
+            client.dispose();
+        }
+    }
+
+    private void removeEntry(Client client) {
+        for (int ii = 0; ii < entries.size(); ii++) {
+            if (entries.get(ii).client == client) {
+                entries.remove(ii);
+                try {
+                    client.dispose();
+                } catch (RuntimeException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
+                return;
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final Client client;
+        private boolean idle = true;
+
+        private Entry(Client client) {
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of the last durations of one stage of the frame loop.
+ *
+ * @author Andreas Hauffe
+ */
+public class RollingHistogram {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    public RollingHistogram(int window) {
+        samples = new long[window];
+    }
+
+    public synchronized void add(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    public FrameTimeStatistics getStatistics() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(sorted);
+
+        long[] histogram = new long[FrameTimeStatistics.HISTOGRAM_LIMITS_MILLIS.length + 1];
+        double sum = 0.0;
+        int bucket = 0;
+        for (long sample : sorted) {
+            double millis = toMillis(sample);
+            sum += millis;
+            while (bucket < FrameTimeStatistics.HISTOGRAM_LIMITS_MILLIS.length
+                    && millis > FrameTimeStatistics.HISTOGRAM_LIMITS_MILLIS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+        }
+        int n = sorted.length;
+        return new FrameTimeStatistics(n, n == 0 ? 0.0 : sum / n,
+                percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                n == 0 ? 0.0 : toMillis(sorted[n - 1]), histogram);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return toMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1.0e6;
+    }
+}
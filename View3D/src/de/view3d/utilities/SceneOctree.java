@@ -0,0 +1,158 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Groups meshes into an octree of nodes. The meshes are sorted into the
+ * octants by the center of their bounds. As the bound of a node is the union
+ * of the bounds of its children, every node of the tree tightly encloses its
+ * meshes and a whole region outside of the view frustum is culled by a
+ * single test.
+ *
+ * @author Andreas Hauffe
+ */
+public class SceneOctree {
+
+    /**
+     * A cell with at most this number of meshes becomes a leaf.
+     */
+    public static final int MAX_LEAF_MESHES = 16;
+
+    public static final int MAX_DEPTH = 8;
+
+    private SceneOctree() {
+    }
+
+    /**
+     * Builds the octree. The meshes of every leaf are passed to the leaf
+     * filler, which has to attach them, or meshes created from them, to the
+     * leaf node.
+     *
+     * @param meshes the meshes
+     * @param modelBounds model bounds of the meshes, e.g. computed by
+     * {@link ParallelBounds}
+     * @param leafFiller attaches the content of a leaf
+     * @return the root node of the octree
+     */
+    public static Node build(List<Mesh> meshes, Map<Mesh, ? extends BoundingVolume> modelBounds,
+            BiConsumer<Node, List<Mesh>> leafFiller) {
+        int count = meshes.size();
+        double[] centers = new double[count * 3];
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        List<Integer> items = new ArrayList<>(count);
+        for (int ii = 0; ii < count; ii++) {
+            Mesh mesh = meshes.get(ii);
+            BoundingVolume bound = modelBounds.get(mesh);
+            ReadOnlyVector3 center = bound != null
+                    ? bound.transform(mesh.getTransform(), null).getCenter()
+                    : mesh.getTranslation();
+            for (int jj = 0; jj < 3; jj++) {
+                centers[ii * 3 + jj] = center.getValue(jj);
+                min[jj] = Math.min(min[jj], centers[ii * 3 + jj]);
+                max[jj] = Math.max(max[jj], centers[ii * 3 + jj]);
+            }
+            items.add(ii);
+        }
+
+        Node root = new Node("OctreeNode");
+        if (count == 0) {
+            return root;
+        }
+        // cubic cells, so that the octants do not degenerate
+        double size = Math.max(max[0] - min[0], Math.max(max[1] - min[1], max[2] - min[2]));
+        fill(root, meshes, items, centers, min, size, 0, leafFiller);
+        return root;
+    }
+
+    private static void fill(Node node, List<Mesh> meshes, List<Integer> items, double[] centers,
+            double[] min, double size, int depth, BiConsumer<Node, List<Mesh>> leafFiller) {
+        while (items.size() > MAX_LEAF_MESHES && depth < MAX_DEPTH && size > 0.0) {
+            double half = size / 2.0;
+            List<List<Integer>> octants = new ArrayList<>(8);
+            for (int ii = 0; ii < 8; ii++) {
+                octants.add(new ArrayList<>());
+            }
+            for (int item : items) {
+                int octant = 0;
+                for (int jj = 0; jj < 3; jj++) {
+                    if (centers[item * 3 + jj] >= min[jj] + half) {
+                        octant |= 1 << jj;
+                    }
+                }
+                octants.get(octant).add(item);
+            }
+
+            int used = 0;
+            int last = 0;
+            for (int ii = 0; ii < 8; ii++) {
+                if (!octants.get(ii).isEmpty()) {
+                    used++;
+                    last = ii;
+                }
+            }
+            depth++;
+            if (used == 1) {
+                // all meshes are in one octant, no node is needed for this level
+                items = octants.get(last);
+                min = octantMin(min, half, last);
+                size = half;
+                continue;
+            }
+            for (int ii = 0; ii < 8; ii++) {
+                if (!octants.get(ii).isEmpty()) {
+                    Node child = new Node("OctreeNode");
+                    fill(child, meshes, octants.get(ii), centers, octantMin(min, half, ii), half, depth, leafFiller);
+                    node.attachChild(child);
+                }
+            }
+            return;
+        }
+
+        List<Mesh> leafMeshes = new ArrayList<>(items.size());
+        for (int item : items) {
+            leafMeshes.add(meshes.get(item));
+        }
+        leafFiller.accept(node, leafMeshes);
+    }
+
+    private static double[] octantMin(double[] min, double half, int octant) {
+        double[] result = new double[3];
+        for (int jj = 0; jj < 3; jj++) {
+            result[jj] = (octant & (1 << jj)) != 0 ? min[jj] + half : min[jj];
+        }
+        return result;
+    }
+}
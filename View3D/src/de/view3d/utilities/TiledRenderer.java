@@ -0,0 +1,268 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.util.geom.BufferUtils;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.GLException;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the scene into an image of arbitrary size. The image is split into
+ * tiles, which are rendered one after another into a frame buffer object
+ * with the parallel projection frustum of the tile. The tiles of one row are
+ * collected in a strip, which is compressed into a PNG file by a background
+ * thread while the next strip is rendered. Thus at most two strips are held
+ * in memory, independent of the height of the image.
+ *
+ * The render method has to be called with the GL context of the canvas
+ * being current, e.g. from {@link com.ardor3d.framework.Scene#renderUnto}.
+ *
+ * @author Andreas Hauffe
+ */
+public class TiledRenderer {
+
+    public static final int MAX_TILE_SIZE = 1024;
+
+    /**
+     * Draws the scene into the current tile. The camera of the tile is
+     * already applied. The queued render buckets are rendered afterwards.
+     */
+    public interface TileScene {
+
+        /**
+         * @param renderer the renderer
+         * @param x left pixel of the tile in the image
+         * @param y bottom pixel of the tile in the image
+         */
+        void drawTile(Renderer renderer, int x, int y);
+    }
+
+    private final File file;
+    private final int width;
+    private final int height;
+
+    public TiledRenderer(File file, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        this.file = file;
+        this.width = width;
+        this.height = height;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Renders all tiles and writes the image. The vertical extent of the
+     * frustum of the camera is kept, the horizontal extent is adapted to the
+     * aspect ratio of the image.
+     *
+     * @param renderer the renderer
+     * @param camera camera of the view, it is applied again afterwards
+     * @param scene draws the scene into a tile
+     * @throws IOException if the image could not be written
+     */
+    public void render(Renderer renderer, Camera camera, TileScene scene) throws IOException {
+        final GL gl = GLContext.getCurrentGL();
+        final IntBuffer ints = BufferUtils.createIntBuffer(2);
+
+        gl.glGetIntegerv(GL.GL_MAX_RENDERBUFFER_SIZE, ints);
+        int tileSize = Math.min(MAX_TILE_SIZE, ints.get(0));
+        ints.clear();
+        gl.glGetIntegerv(GL.GL_MAX_VIEWPORT_DIMS, ints);
+        tileSize = Math.min(tileSize, Math.min(ints.get(0), ints.get(1)));
+        ints.clear();
+        gl.glGetIntegerv(GL.GL_FRAMEBUFFER_BINDING, ints);
+        final int previousFramebuffer = ints.get(0);
+        ints.clear();
+        gl.glGetIntegerv(GL.GL_PACK_ALIGNMENT, ints);
+        final int previousPackAlignment = ints.get(0);
+        final boolean scissorTest = gl.glIsEnabled(GL.GL_SCISSOR_TEST);
+
+        final PngStreamWriter png = new PngStreamWriter(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16), width, height);
+        final int[] ids = createFramebuffer(gl, tileSize);
+        final ExecutorService encoder = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "View3D tile encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Camera tileCamera = new Camera(camera);
+        final ByteBuffer pixels = BufferUtils.createByteBuffer(3 * tileSize * tileSize);
+        Future<?> pending = null;
+        boolean written = false;
+        try {
+            gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, ids[0]);
+            gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 1);
+            tileCamera.resize(tileSize, tileSize);
+
+            double frustumHeight = camera.getFrustumTop() - camera.getFrustumBottom();
+            double frustumWidth = frustumHeight * width / height;
+            double left = 0.5 * (camera.getFrustumLeft() + camera.getFrustumRight() - frustumWidth);
+            double bottom = 0.5 * (camera.getFrustumBottom() + camera.getFrustumTop() - frustumHeight);
+            double tileWidth = frustumWidth * tileSize / width;
+            double tileHeight = frustumHeight * tileSize / height;
+
+            for (int top = 0; top < height; top += tileSize) {
+                final int rows = Math.min(tileSize, height - top);
+                final int y = height - top - rows;
+                final byte[] strip = new byte[3 * width * rows];
+                for (int x = 0; x < width; x += tileSize) {
+                    final int columns = Math.min(tileSize, width - x);
+                    double tileLeft = left + frustumWidth * x / width;
+                    double tileBottom = bottom + frustumHeight * y / height;
+                    tileCamera.setFrustum(camera.getFrustumNear(), camera.getFrustumFar(),
+                            tileLeft, tileLeft + tileWidth, tileBottom + tileHeight, tileBottom);
+                    tileCamera.update();
+                    tileCamera.apply(renderer);
+
+                    gl.glDisable(GL.GL_SCISSOR_TEST);
+                    renderer.clearBuffers(Renderer.BUFFER_COLOR_AND_DEPTH);
+                    scene.drawTile(renderer, x, y);
+                    renderer.renderBuckets();
+
+                    pixels.clear();
+                    gl.glReadPixels(0, 0, columns, rows, GL.GL_RGB, GL.GL_UNSIGNED_BYTE, pixels);
+                    // GL rows start at the bottom
+                    for (int row = 0; row < rows; row++) {
+                        pixels.get(3 * row * columns, strip, 3 * ((rows - row - 1) * width + x), 3 * columns);
+                    }
+                }
+                if (pending != null) {
+                    waitFor(pending);
+                }
+                pending = encoder.submit(() -> {
+                    for (int row = 0; row < rows; row++) {
+                        png.writeRow(strip, 3 * row * width);
+                    }
+                    return null;
+                });
+            }
+            if (pending != null) {
+                waitFor(pending);
+            }
+            written = true;
+        } finally {
+            encoder.shutdownNow();
+            // the state of the canvas is restored for its next frame
+            gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, previousPackAlignment);
+            if (scissorTest) {
+                gl.glEnable(GL.GL_SCISSOR_TEST);
+            }
+            gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, previousFramebuffer);
+            deleteFramebuffer(gl, ids);
+            camera.update();
+            camera.apply(renderer);
+            if (written) {
+                png.close();
+            } else {
+                try {
+                    png.close();
+                } catch (IOException ex) {
+                    // the image is incomplete anyway
+                }
+                file.delete();
+            }
+        }
+    }
+
+    private static void waitFor(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the image", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Creates a frame buffer object with a color and a depth render buffer.
+     *
+     * @return ids of the frame buffer, the color and the depth render buffer
+     */
+    private static int[] createFramebuffer(GL gl, int size) {
+        IntBuffer buffer = BufferUtils.createIntBuffer(3);
+        gl.glGenFramebuffers(1, buffer);
+        buffer.position(1);
+        gl.glGenRenderbuffers(2, buffer);
+        int[] ids = {buffer.get(0), buffer.get(1), buffer.get(2)};
+
+        gl.glBindRenderbuffer(GL.GL_RENDERBUFFER, ids[1]);
+        gl.glRenderbufferStorage(GL.GL_RENDERBUFFER, GL.GL_RGBA8, size, size);
+        gl.glBindRenderbuffer(GL.GL_RENDERBUFFER, ids[2]);
+        gl.glRenderbufferStorage(GL.GL_RENDERBUFFER, GL.GL_DEPTH_COMPONENT24, size, size);
+        gl.glBindRenderbuffer(GL.GL_RENDERBUFFER, 0);
+
+        IntBuffer previous = BufferUtils.createIntBuffer(1);
+        gl.glGetIntegerv(GL.GL_FRAMEBUFFER_BINDING, previous);
+        gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, ids[0]);
+        gl.glFramebufferRenderbuffer(GL.GL_FRAMEBUFFER, GL.GL_COLOR_ATTACHMENT0, GL.GL_RENDERBUFFER, ids[1]);
+        gl.glFramebufferRenderbuffer(GL.GL_FRAMEBUFFER, GL.GL_DEPTH_ATTACHMENT, GL.GL_RENDERBUFFER, ids[2]);
+        int status = gl.glCheckFramebufferStatus(GL.GL_FRAMEBUFFER);
+        gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, previous.get(0));
+        if (status != GL.GL_FRAMEBUFFER_COMPLETE) {
+            deleteFramebuffer(gl, ids);
+            throw new GLException("Frame buffer object incomplete: 0x" + Integer.toHexString(status));
+        }
+        return ids;
+    }
+
+    private static void deleteFramebuffer(GL gl, int[] ids) {
+        IntBuffer buffer = BufferUtils.createIntBuffer(3);
+        buffer.put(ids).flip();
+        gl.glDeleteFramebuffers(1, buffer);
+        buffer.position(1);
+        gl.glDeleteRenderbuffers(2, buffer);
+    }
+}
@@ -0,0 +1,747 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.util.geom.BufferUtils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads unstructured grids from binary legacy VTK files, including the
+ * offsets and connectivity arrays of version 5, and VTK XML (.vtu)
+ * files with raw appended data, as written by {@link LegacyVtkWriter} and
+ * {@link VtuWriter}. The file is memory mapped and the binary data is copied
+ * in bulk into direct buffers, compressed blocks are inflated in parallel.
+ * Quads and triangles are converted into meshes, other cells are skipped.
+ * Vertex colors are read from a point data array named "Colors".
+ *
+ * @author Andreas Hauffe
+ */
+public class VtkReader {
+
+    private static final int VTK_TRIANGLE = 5;
+    private static final int VTK_PIXEL = 8;
+    private static final int VTK_QUAD = 9;
+
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:]+)\\s*=\\s*\"([^\"]*)\"");
+    private static final Pattern PIECE = Pattern.compile("<Piece\\s([^>]*)>(.*?)</Piece>", Pattern.DOTALL);
+    private static final Pattern DATA_ARRAY = Pattern.compile("<DataArray\\s([^>]*?)/?>");
+    private static final Pattern VERSION = Pattern.compile("Version\\s+(\\d+)\\.(\\d+)");
+
+    private VtkReader() {
+    }
+
+    /**
+     * Reads the meshes of the file.
+     *
+     * @param path the file
+     * @return the meshes
+     * @throws IOException if the file cannot be read or has an unsupported
+     * format
+     */
+    public static List<Mesh> read(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            String start = ascii(map, 0, (int) Math.min(size, 64));
+            if (start.startsWith("# vtk DataFile")) {
+                return readLegacy(map, name);
+            }
+            if (start.startsWith("<?xml") || start.startsWith("<VTKFile")) {
+                return readVtu(map, name);
+            }
+            throw new IOException("Unknown file format: " + path);
+        }
+    }
+
+    private static List<Mesh> readLegacy(ByteBuffer map, String name) throws IOException {
+        ByteBuffer in = map.duplicate().order(ByteOrder.BIG_ENDIAN);
+        Matcher version = VERSION.matcher(readLine(in));
+        int major = version.find() ? Integer.parseInt(version.group(1)) : 0;
+        if (major > 5) {
+            throw new IOException("Unsupported legacy VTK version " + version.group(1) + "." + version.group(2));
+        }
+        readLine(in);
+        if (!readLine(in).trim().equalsIgnoreCase("BINARY")) {
+            throw new IOException("Only binary legacy VTK files are supported");
+        }
+        if (!readLine(in).trim().equalsIgnoreCase("DATASET UNSTRUCTURED_GRID")) {
+            throw new IOException("Only unstructured grids are supported");
+        }
+
+        FloatBuffer points = null;
+        int pointCount = 0;
+        ByteBuffer cells = null;
+        int cellCount = 0;
+        IntegerArray offsets = null;
+        IntegerArray connectivity = null;
+        ByteBuffer types = null;
+        parse:
+        while (in.hasRemaining()) {
+            String[] tokens = readLine(in).trim().split("\\s+");
+            switch (tokens[0].toUpperCase()) {
+                case "":
+                    break;
+                case "POINTS":
+                    pointCount = Integer.parseInt(tokens[1]);
+                    points = BufferUtils.createVector3Buffer(pointCount);
+                    int floats = pointCount * 3;
+                    if (tokens[2].equalsIgnoreCase("float")) {
+                        points.put(in.slice(in.position(), floats * Float.BYTES).order(ByteOrder.BIG_ENDIAN).asFloatBuffer());
+                        in.position(in.position() + floats * Float.BYTES);
+                    } else if (tokens[2].equalsIgnoreCase("double")) {
+                        for (int ii = 0; ii < floats; ii++) {
+                            points.put((float) in.getDouble());
+                        }
+                    } else {
+                        throw new IOException("Unsupported point type " + tokens[2]);
+                    }
+                    points.rewind();
+                    break;
+                case "CELLS":
+                    if (major >= 5) {
+                        // version 5 stores the offsets and the connectivity as separate arrays
+                        offsets = readLegacyArray(in, "OFFSETS", Integer.parseInt(tokens[1]));
+                        connectivity = readLegacyArray(in, "CONNECTIVITY", Integer.parseInt(tokens[2]));
+                        cellCount = offsets.size() - 1;
+                        break;
+                    }
+                    cellCount = Integer.parseInt(tokens[1]);
+                    int size = Integer.parseInt(tokens[2]);
+                    cells = in.slice(in.position(), size * Integer.BYTES).order(ByteOrder.BIG_ENDIAN);
+                    in.position(in.position() + size * Integer.BYTES);
+                    break;
+                case "CELL_TYPES":
+                    types = in.slice(in.position(), Integer.parseInt(tokens[1]) * Integer.BYTES).order(ByteOrder.BIG_ENDIAN);
+                    in.position(in.position() + types.capacity());
+                    break;
+                default:
+                    // attributes are not read
+                    break parse;
+            }
+        }
+        if (points == null || (cells == null && connectivity == null) || types == null) {
+            throw new IOException("Incomplete unstructured grid");
+        }
+        ByteBuffer cellTypes = types;
+        if (connectivity != null) {
+            IntegerArray cellOffsets = offsets;
+            IntegerArray cellPoints = connectivity;
+            int offsetCells = cellCount;
+            Cells offsetCellList = new Cells() {
+                @Override
+                public int size() {
+                    return offsetCells;
+                }
+
+                @Override
+                public int type(int cell) {
+                    return cellTypes.getInt(cell * Integer.BYTES);
+                }
+
+                @Override
+                public int start(int cell) {
+                    return cellOffsets.get(cell);
+                }
+
+                @Override
+                public int length(int cell) {
+                    return cellOffsets.get(cell + 1) - cellOffsets.get(cell);
+                }
+
+                @Override
+                public int point(int index) {
+                    return cellPoints.get(index);
+                }
+            };
+            return assemble(name, points, pointCount, null, offsetCellList);
+        }
+
+        // the legacy cell list stores the number of points in front of every cell
+        int[] starts = new int[cellCount + 1];
+        int index = 0;
+        for (int ii = 0; ii < cellCount; ii++) {
+            starts[ii] = index + 1;
+            index += cells.getInt(index * Integer.BYTES) + 1;
+        }
+        starts[cellCount] = index + 1;
+        ByteBuffer cellPoints = cells;
+        Cells legacyCells = new Cells() {
+            @Override
+            public int size() {
+                return starts.length - 1;
+            }
+
+            @Override
+            public int type(int cell) {
+                return cellTypes.getInt(cell * Integer.BYTES);
+            }
+
+            @Override
+            public int start(int cell) {
+                return starts[cell];
+            }
+
+            @Override
+            public int length(int cell) {
+                return starts[cell + 1] - starts[cell] - 1;
+            }
+
+            @Override
+            public int point(int index) {
+                return cellPoints.getInt(index * Integer.BYTES);
+            }
+        };
+        return assemble(name, points, pointCount, null, legacyCells);
+    }
+
+    /**
+     * Reads a binary integer array of a version 5 legacy file, which follows
+     * a line with the keyword and the data type.
+     */
+    private static IntegerArray readLegacyArray(ByteBuffer in, String keyword, int count) throws IOException {
+        String line = "";
+        while (in.hasRemaining() && line.isEmpty()) {
+            line = readLine(in).trim();
+        }
+        String[] tokens = line.split("\\s+");
+        if (tokens.length < 2 || !tokens[0].equalsIgnoreCase(keyword)) {
+            throw new IOException("Expected " + keyword + " instead of " + line);
+        }
+        int width;
+        switch (tokens[1].toLowerCase()) {
+            case "vtktypeint32":
+                width = Integer.BYTES;
+                break;
+            case "vtktypeint64":
+                width = Long.BYTES;
+                break;
+            default:
+                throw new IOException("Unsupported " + keyword + " type " + tokens[1]);
+        }
+        ByteBuffer data = in.slice(in.position(), count * width).order(ByteOrder.BIG_ENDIAN);
+        in.position(in.position() + data.capacity());
+        return new IntegerArray(data, width == Long.BYTES ? "Int64" : "Int32");
+    }
+
+    private static List<Mesh> readVtu(ByteBuffer map, String name) throws IOException {
+        int headerEnd = indexOf(map, "<AppendedData");
+        if (headerEnd < 0) {
+            throw new IOException("Only VTU files with appended data are supported");
+        }
+        int dataStart = indexOf(map, "_", headerEnd) + 1;
+        String header = ascii(map, 0, dataStart);
+        Map<String, String> file = attributes(header.substring(header.indexOf("<VTKFile"), header.indexOf('>', header.indexOf("<VTKFile"))));
+        Map<String, String> appended = attributes(header.substring(headerEnd, dataStart));
+        if (!"raw".equals(appended.get("encoding"))) {
+            throw new IOException("Only raw encoded appended data is supported");
+        }
+        Decoder decoder = new Decoder(map, dataStart,
+                "BigEndian".equals(file.get("byte_order")) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN,
+                "UInt64".equals(file.get("header_type")),
+                file.containsKey("compressor"));
+        if (decoder.compressed && !file.get("compressor").contains("ZLib")) {
+            throw new IOException("Unsupported compressor " + file.get("compressor"));
+        }
+
+        List<Mesh> meshes = new ArrayList<>();
+        Matcher piece = PIECE.matcher(header);
+        while (piece.find()) {
+            Map<String, String> pieceAttributes = attributes(piece.group(1));
+            int pointCount = Integer.parseInt(pieceAttributes.get("NumberOfPoints"));
+            String content = piece.group(2);
+
+            Map<String, String> pointsArray = firstArray(section(content, "Points"));
+            FloatBuffer points = toFloats(decoder.decode(pointsArray), pointsArray.get("type"), pointCount * 3);
+
+            FloatBuffer colors = null;
+            for (Map<String, String> array : arrays(section(content, "PointData"))) {
+                if ("Colors".equals(array.get("Name"))) {
+                    colors = toColors(decoder.decode(array), array.get("type"),
+                            Integer.parseInt(array.getOrDefault("NumberOfComponents", "1")), pointCount);
+                }
+            }
+
+            Map<String, ByteBuffer> cellData = new HashMap<>();
+            Map<String, String> cellTypes = new HashMap<>();
+            for (Map<String, String> array : arrays(section(content, "Cells"))) {
+                cellData.put(array.get("Name"), decoder.decode(array));
+                cellTypes.put(array.get("Name"), array.get("type"));
+            }
+            if (!cellData.containsKey("connectivity") || !cellData.containsKey("offsets") || !cellData.containsKey("types")) {
+                throw new IOException("Incomplete unstructured grid");
+            }
+            IntegerArray connectivity = new IntegerArray(cellData.get("connectivity"), cellTypes.get("connectivity"));
+            IntegerArray offsets = new IntegerArray(cellData.get("offsets"), cellTypes.get("offsets"));
+            IntegerArray types = new IntegerArray(cellData.get("types"), cellTypes.get("types"));
+            Cells cells = new Cells() {
+                @Override
+                public int size() {
+                    return offsets.size();
+                }
+
+                @Override
+                public int type(int cell) {
+                    return types.get(cell);
+                }
+
+                @Override
+                public int start(int cell) {
+                    return cell == 0 ? 0 : offsets.get(cell - 1);
+                }
+
+                @Override
+                public int length(int cell) {
+                    return offsets.get(cell) - start(cell);
+                }
+
+                @Override
+                public int point(int index) {
+                    return connectivity.get(index);
+                }
+            };
+            meshes.addAll(assemble(name, points, pointCount, colors, cells));
+        }
+        return meshes;
+    }
+
+    /**
+     * Creates a quad mesh and a triangle mesh from the cells. If the cells
+     * are quads of consecutive points, as written by the exporters, the quad
+     * mesh is not indexed.
+     */
+    private static List<Mesh> assemble(String name, FloatBuffer points, int pointCount, FloatBuffer colors, Cells cells) {
+        int quadCount = 0;
+        int triangleCount = 0;
+        boolean consecutive = true;
+        for (int ii = 0; ii < cells.size(); ii++) {
+            int type = cells.type(ii);
+            if ((type == VTK_QUAD || type == VTK_PIXEL) && cells.length(ii) == 4) {
+                consecutive &= type == VTK_QUAD;
+                quadCount++;
+            } else if (type == VTK_TRIANGLE && cells.length(ii) == 3) {
+                triangleCount++;
+            } else {
+                consecutive = false;
+            }
+        }
+        consecutive &= quadCount * 4 == pointCount;
+        for (int ii = 0; ii < cells.size() && consecutive; ii++) {
+            for (int jj = 0; jj < 4; jj++) {
+                consecutive &= cells.point(cells.start(ii) + jj) == ii * 4 + jj;
+            }
+        }
+
+        IndexBufferData<?> quads = null;
+        IndexBufferData<?> triangles = null;
+        if (!consecutive) {
+            quads = quadCount > 0 ? BufferUtils.createIndexBufferData(quadCount * 4, pointCount - 1) : null;
+            triangles = triangleCount > 0 ? BufferUtils.createIndexBufferData(triangleCount * 3, pointCount - 1) : null;
+        }
+        FloatBuffer normals = BufferUtils.createVector3Buffer(pointCount);
+        int[] points4 = new int[4];
+        for (int ii = 0; ii < cells.size(); ii++) {
+            int type = cells.type(ii);
+            int length = cells.length(ii);
+            if (!(((type == VTK_QUAD || type == VTK_PIXEL) && length == 4) || (type == VTK_TRIANGLE && length == 3))) {
+                continue;
+            }
+            int start = cells.start(ii);
+            for (int jj = 0; jj < length; jj++) {
+                points4[jj] = cells.point(start + jj);
+            }
+            if (type == VTK_PIXEL) {
+                // pixels are ordered row by row
+                int tmp = points4[2];
+                points4[2] = points4[3];
+                points4[3] = tmp;
+            }
+            IndexBufferData<?> target = length == 4 ? quads : triangles;
+            if (target != null) {
+                for (int jj = 0; jj < length; jj++) {
+                    target.put(points4[jj]);
+                }
+            }
+            addNormal(points, normals, points4, length);
+        }
+        normalize(normals, pointCount);
+
+        List<Mesh> meshes = new ArrayList<>(2);
+        if (quadCount > 0) {
+            meshes.add(createMesh(name, points, normals, colors, quads, IndexMode.Quads));
+        }
+        if (triangleCount > 0) {
+            meshes.add(createMesh(name + "Triangles", points, normals, colors, triangles, IndexMode.Triangles));
+        }
+        return meshes;
+    }
+
+    private static Mesh createMesh(String name, FloatBuffer points, FloatBuffer normals, FloatBuffer colors,
+            IndexBufferData<?> indices, IndexMode mode) {
+        Mesh mesh = new Mesh(name);
+        MeshData data = mesh.getMeshData();
+        data.setVertexBuffer(points);
+        data.setNormalBuffer(normals);
+        if (colors != null) {
+            data.setColorBuffer(colors);
+        }
+        if (indices != null) {
+            indices.rewind();
+            data.setIndices(indices);
+        }
+        data.setIndexMode(mode);
+        mesh.setModelBound(new BoundingBox());
+        return mesh;
+    }
+
+    /**
+     * Adds the normal of the polygon to the normals of its points.
+     */
+    private static void addNormal(FloatBuffer points, FloatBuffer normals, int[] polygon, int length) {
+        double nx = 0.0;
+        double ny = 0.0;
+        double nz = 0.0;
+        for (int ii = 0; ii < length; ii++) {
+            int a = polygon[ii] * 3;
+            int b = polygon[(ii + 1) % length] * 3;
+            // Newell's method
+            nx += (points.get(a + 1) - points.get(b + 1)) * (points.get(a + 2) + points.get(b + 2));
+            ny += (points.get(a + 2) - points.get(b + 2)) * (points.get(a) + points.get(b));
+            nz += (points.get(a) - points.get(b)) * (points.get(a + 1) + points.get(b + 1));
+        }
+        for (int ii = 0; ii < length; ii++) {
+            int a = polygon[ii] * 3;
+            normals.put(a, normals.get(a) + (float) nx);
+            normals.put(a + 1, normals.get(a + 1) + (float) ny);
+            normals.put(a + 2, normals.get(a + 2) + (float) nz);
+        }
+    }
+
+    private static void normalize(FloatBuffer normals, int count) {
+        for (int ii = 0; ii < count; ii++) {
+            float x = normals.get(ii * 3);
+            float y = normals.get(ii * 3 + 1);
+            float z = normals.get(ii * 3 + 2);
+            float length = (float) Math.sqrt(x * x + y * y + z * z);
+            if (length > 0.0f) {
+                normals.put(ii * 3, x / length);
+                normals.put(ii * 3 + 1, y / length);
+                normals.put(ii * 3 + 2, z / length);
+            }
+        }
+    }
+
+    private static FloatBuffer toFloats(ByteBuffer data, String type, int count) throws IOException {
+        if ("Float32".equals(type)) {
+            if (data.order() == ByteOrder.nativeOrder()) {
+                // the inflated data is used directly
+                return data.asFloatBuffer();
+            }
+            FloatBuffer result = BufferUtils.createFloatBuffer(count);
+            result.put(data.asFloatBuffer());
+            result.rewind();
+            return result;
+        } else if ("Float64".equals(type)) {
+            FloatBuffer result = BufferUtils.createFloatBuffer(count);
+            for (int ii = 0; ii < count; ii++) {
+                result.put(ii, (float) data.getDouble(ii * Double.BYTES));
+            }
+            return result;
+        }
+        throw new IOException("Unsupported point type " + type);
+    }
+
+    private static FloatBuffer toColors(ByteBuffer data, String type, int components, int count) throws IOException {
+        FloatBuffer result = BufferUtils.createColorBuffer(count);
+        for (int ii = 0; ii < count; ii++) {
+            for (int jj = 0; jj < 4; jj++) {
+                float value;
+                if (jj >= components) {
+                    value = 1.0f;
+                } else if ("UInt8".equals(type)) {
+                    value = (data.get(ii * components + jj) & 0xFF) / 255.0f;
+                } else if ("Float32".equals(type)) {
+                    value = data.getFloat((ii * components + jj) * Float.BYTES);
+                } else {
+                    throw new IOException("Unsupported color type " + type);
+                }
+                result.put(value);
+            }
+        }
+        result.rewind();
+        return result;
+    }
+
+    private static String readLine(ByteBuffer in) {
+        int start = in.position();
+        while (in.hasRemaining() && in.get() != '\n') {
+            // skip to the end of the line
+        }
+        return ascii(in, start, in.position() - start);
+    }
+
+    private static String ascii(ByteBuffer buffer, int start, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int indexOf(ByteBuffer buffer, String text) {
+        return indexOf(buffer, text, 0);
+    }
+
+    private static int indexOf(ByteBuffer buffer, String text, int from) {
+        byte[] pattern = text.getBytes(StandardCharsets.US_ASCII);
+        search:
+        for (int ii = from; ii <= buffer.limit() - pattern.length; ii++) {
+            for (int jj = 0; jj < pattern.length; jj++) {
+                if (buffer.get(ii + jj) != pattern[jj]) {
+                    continue search;
+                }
+            }
+            return ii;
+        }
+        return -1;
+    }
+
+    private static Map<String, String> attributes(String tag) {
+        Map<String, String> result = new HashMap<>();
+        Matcher matcher = ATTRIBUTE.matcher(tag);
+        while (matcher.find()) {
+            result.put(matcher.group(1), matcher.group(2));
+        }
+        return result;
+    }
+
+    private static String section(String content, String tag) throws IOException {
+        int start = content.indexOf("<" + tag);
+        int end = content.indexOf("</" + tag + ">");
+        if (start < 0) {
+            return "";
+        }
+        if (end < 0) {
+            throw new IOException("Missing end of " + tag);
+        }
+        return content.substring(start, end);
+    }
+
+    private static List<Map<String, String>> arrays(String section) {
+        List<Map<String, String>> result = new ArrayList<>();
+        Matcher matcher = DATA_ARRAY.matcher(section);
+        while (matcher.find()) {
+            result.add(attributes(matcher.group(1)));
+        }
+        return result;
+    }
+
+    private static Map<String, String> firstArray(String section) throws IOException {
+        List<Map<String, String>> result = arrays(section);
+        if (result.isEmpty()) {
+            throw new IOException("Missing points");
+        }
+        return result.get(0);
+    }
+
+    /**
+     * Cells of an unstructured grid. The points of a cell are stored
+     * consecutively in the connectivity beginning at the start index.
+     */
+    private interface Cells {
+
+        int size();
+
+        int type(int cell);
+
+        int start(int cell);
+
+        int length(int cell);
+
+        int point(int index);
+    }
+
+    /**
+     * Integer data array of any width.
+     */
+    private static final class IntegerArray {
+
+        private final ByteBuffer data;
+        private final int width;
+        private final boolean unsigned;
+
+        IntegerArray(ByteBuffer data, String type) throws IOException {
+            this.data = data;
+            switch (type) {
+                case "Int8":
+                case "UInt8":
+                    width = 1;
+                    break;
+                case "Int16":
+                case "UInt16":
+                    width = 2;
+                    break;
+                case "Int32":
+                case "UInt32":
+                    width = 4;
+                    break;
+                case "Int64":
+                case "UInt64":
+                    width = 8;
+                    break;
+                default:
+                    throw new IOException("Unsupported integer type " + type);
+            }
+            unsigned = type.startsWith("U");
+        }
+
+        int size() {
+            return data.capacity() / width;
+        }
+
+        int get(int index) {
+            switch (width) {
+                case 1:
+                    return unsigned ? data.get(index) & 0xFF : data.get(index);
+                case 2:
+                    return unsigned ? data.getShort(index * 2) & 0xFFFF : data.getShort(index * 2);
+                case 4:
+                    return data.getInt(index * 4);
+                default:
+                    return (int) data.getLong(index * 8);
+            }
+        }
+    }
+
+    /**
+     * Decodes the arrays of the appended data into direct buffers.
+     */
+    private static final class Decoder {
+
+        private final ByteBuffer map;
+        private final int dataStart;
+        private final ByteOrder order;
+        private final boolean longHeader;
+        private final boolean compressed;
+
+        Decoder(ByteBuffer map, int dataStart, ByteOrder order, boolean longHeader, boolean compressed) {
+            this.map = map;
+            this.dataStart = dataStart;
+            this.order = order;
+            this.longHeader = longHeader;
+            this.compressed = compressed;
+        }
+
+        ByteBuffer decode(Map<String, String> array) throws IOException {
+            if (!"appended".equals(array.get("format"))) {
+                throw new IOException("Only appended data arrays are supported");
+            }
+            ByteBuffer in = map.duplicate().order(order);
+            in.position(dataStart + (int) Long.parseLong(array.get("offset")));
+            if (!compressed) {
+                int size = (int) readHeader(in);
+                ByteBuffer out = ByteBuffer.allocateDirect(size).order(order);
+                out.put(in.slice(in.position(), size));
+                return out.clear();
+            }
+
+            int blockCount = (int) readHeader(in);
+            int blockSize = (int) readHeader(in);
+            int lastSize = (int) readHeader(in);
+            if (lastSize == 0) {
+                // a last block of zero bytes means a full block
+                lastSize = blockSize;
+            }
+            int[] compressedSizes = new int[blockCount];
+            for (int ii = 0; ii < blockCount; ii++) {
+                compressedSizes[ii] = (int) readHeader(in);
+            }
+            int size = blockCount == 0 ? 0 : (blockCount - 1) * blockSize + lastSize;
+            ByteBuffer out = ByteBuffer.allocateDirect(size).order(order);
+
+            // every block is inflated into its own part of the result
+            List<CompletableFuture<Void>> futures = new ArrayList<>(blockCount);
+            int source = in.position();
+            for (int ii = 0; ii < blockCount; ii++) {
+                ByteBuffer input = in.slice(source, compressedSizes[ii]);
+                ByteBuffer output = out.slice(ii * blockSize, ii == blockCount - 1 ? lastSize : blockSize);
+                futures.add(CompletableFuture.runAsync(() -> inflate(input, output)));
+                source += compressedSizes[ii];
+            }
+            try {
+                for (CompletableFuture<Void> future : futures) {
+                    future.join();
+                }
+            } catch (RuntimeException ex) {
+                throw new IOException("Corrupt compressed data", ex);
+            }
+            return out;
+        }
+
+        private long readHeader(ByteBuffer in) {
+            return longHeader ? in.getLong() : in.getInt() & 0xFFFFFFFFL;
+        }
+
+        private static void inflate(ByteBuffer input, ByteBuffer output) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(input);
+                while (output.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IllegalStateException("Truncated block");
+                    }
+                }
+            } catch (DataFormatException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
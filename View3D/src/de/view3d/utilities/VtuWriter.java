@@ -0,0 +1,339 @@
+/*
+ *  This program developed in Java is based on the netbeans platform and is used
+ *  to design and to analyse composite structures by means of analytical and 
+ *  numerical methods.
+ * 
+ *  Further information can be found here:
+ *  http://www.elamx.de
+ *    
+ *  Copyright (C) 2021 Technische Universität Dresden - Andreas Hauffe
+ * 
+ *  This file is part of eLamX².
+ *
+ *  eLamX² is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  eLamX² is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with eLamX².  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.view3d.utilities;
+
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.scenegraph.Mesh;
+import de.view3d.ScalarField;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the vertices of quad meshes as VTK XML unstructured grid (.vtu) with
+ * zlib compressed appended data. Every data array is split into blocks which
+ * are filled and compressed independently on the common fork join pool. The
+ * colors of the vertices and the given scalar fields are written as point
+ * data. Every four consecutive vertices form one quad cell.
+ *
+ * @author Andreas Hauffe
+ */
+public class VtuWriter {
+
+    private static final int ELEMENTS_PER_BLOCK = 1 << 14;
+
+    private static final byte VTK_QUAD = 9;
+
+    private VtuWriter() {
+    }
+
+    /**
+     * Writes the quads of the meshes to the file. Nothing is written, if the
+     * meshes have no vertices.
+     *
+     * @param meshes the meshes
+     * @param scalars scalar fields written as point data, the key is the name
+     * of the field
+     * @param path the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeQuads(List<Mesh> meshes, Map<String, ScalarField> scalars, Path path) throws IOException {
+        int[] vertexStart = new int[meshes.size() + 1];
+        for (int ii = 0; ii < meshes.size(); ii++) {
+            vertexStart[ii + 1] = vertexStart[ii] + meshes.get(ii).getMeshData().getVertexCount();
+        }
+        int nP = vertexStart[meshes.size()];
+        if (nP == 0) {
+            return;
+        }
+        int numCells = nP / 4;
+
+        DataArray points = new VertexArray("Points", "Float32", 3, Float.BYTES * 3, meshes, vertexStart) {
+            @Override
+            void put(ByteBuffer buffer, Mesh mesh, int vertex) {
+                FloatBuffer vertices = mesh.getMeshData().getVertexBuffer();
+                buffer.putFloat(vertices.get(vertex * 3));
+                buffer.putFloat(vertices.get(vertex * 3 + 1));
+                buffer.putFloat(vertices.get(vertex * 3 + 2));
+            }
+        };
+        DataArray colors = new VertexArray("Colors", "UInt8", 4, 4, meshes, vertexStart) {
+            @Override
+            void put(ByteBuffer buffer, Mesh mesh, int vertex) {
+                FloatBuffer color = mesh.getMeshData().getColorBuffer();
+                if (color != null) {
+                    for (int ii = 0; ii < 4; ii++) {
+                        buffer.put(toByte(color.get(vertex * 4 + ii)));
+                    }
+                } else {
+                    ReadOnlyColorRGBA c = mesh.getDefaultColor();
+                    buffer.put(toByte(c.getRed())).put(toByte(c.getGreen())).put(toByte(c.getBlue())).put(toByte(c.getAlpha()));
+                }
+            }
+        };
+        List<DataArray> pointData = new ArrayList<>();
+        pointData.add(colors);
+        for (Map.Entry<String, ScalarField> entry : scalars.entrySet()) {
+            ScalarField field = entry.getValue();
+            pointData.add(new VertexArray(entry.getKey(), "Float32", 1, Float.BYTES, meshes, vertexStart) {
+                @Override
+                void put(ByteBuffer buffer, Mesh mesh, int vertex) {
+                    buffer.putFloat(field.getValue(mesh, vertex));
+                }
+            });
+        }
+        DataArray connectivity = new DataArray("connectivity", "Int32", 1, Integer.BYTES, numCells * 4) {
+            @Override
+            void put(ByteBuffer buffer, int element) {
+                buffer.putInt(element);
+            }
+        };
+        DataArray offsets = new DataArray("offsets", "Int32", 1, Integer.BYTES, numCells) {
+            @Override
+            void put(ByteBuffer buffer, int element) {
+                buffer.putInt((element + 1) * 4);
+            }
+        };
+        DataArray types = new DataArray("types", "UInt8", 1, 1, numCells) {
+            @Override
+            void put(ByteBuffer buffer, int element) {
+                buffer.put(VTK_QUAD);
+            }
+        };
+
+        // the compressed sizes are needed for the offsets in the header
+        List<DataArray> arrays = new ArrayList<>(pointData);
+        arrays.add(points);
+        arrays.add(connectivity);
+        arrays.add(offsets);
+        arrays.add(types);
+        long offset = 0;
+        for (DataArray array : arrays) {
+            array.compress();
+            array.offset = offset;
+            offset += array.appendedSize();
+        }
+
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\"?>\n");
+        xml.append("<VTKFile type=\"UnstructuredGrid\" version=\"1.0\" byte_order=\"LittleEndian\" header_type=\"UInt64\" compressor=\"vtkZLibDataCompressor\">\n");
+        xml.append("  <UnstructuredGrid>\n");
+        xml.append("    <Piece NumberOfPoints=\"").append(nP).append("\" NumberOfCells=\"").append(numCells).append("\">\n");
+        xml.append("      <PointData>\n");
+        for (DataArray array : pointData) {
+            array.appendXml(xml, "        ");
+        }
+        xml.append("      </PointData>\n");
+        xml.append("      <Points>\n");
+        points.appendXml(xml, "        ");
+        xml.append("      </Points>\n");
+        xml.append("      <Cells>\n");
+        connectivity.appendXml(xml, "        ");
+        offsets.appendXml(xml, "        ");
+        types.appendXml(xml, "        ");
+        xml.append("      </Cells>\n");
+        xml.append("    </Piece>\n");
+        xml.append("  </UnstructuredGrid>\n");
+        xml.append("  <AppendedData encoding=\"raw\">\n");
+        xml.append("   _");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, ByteBuffer.wrap(xml.toString().getBytes(StandardCharsets.UTF_8)));
+            for (DataArray array : arrays) {
+                array.writeTo(channel);
+            }
+            write(channel, ByteBuffer.wrap("\n  </AppendedData>\n</VTKFile>\n".getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+
+    private static byte toByte(float value) {
+        return (byte) Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 255.0f);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Data array of the appended data. The raw data of an element is created
+     * by {@link #put(java.nio.ByteBuffer, int)} while the block of the
+     * element is compressed.
+     */
+    private abstract static class DataArray {
+
+        private final String name;
+        private final String type;
+        private final int components;
+        private final int elementSize;
+        private final int count;
+        private byte[][] blocks;
+        private long offset;
+
+        DataArray(String name, String type, int components, int elementSize, int count) {
+            this.name = name;
+            this.type = type;
+            this.components = components;
+            this.elementSize = elementSize;
+            this.count = count;
+        }
+
+        abstract void put(ByteBuffer buffer, int element);
+
+        void compress() {
+            int blockCount = Math.max((count + ELEMENTS_PER_BLOCK - 1) / ELEMENTS_PER_BLOCK, 1);
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>(blockCount);
+            for (int ii = 0; ii < blockCount; ii++) {
+                int first = ii * ELEMENTS_PER_BLOCK;
+                int last = Math.min(first + ELEMENTS_PER_BLOCK, count);
+                futures.add(CompletableFuture.supplyAsync(() -> compressBlock(first, last)));
+            }
+            blocks = new byte[blockCount][];
+            for (int ii = 0; ii < blockCount; ii++) {
+                blocks[ii] = futures.get(ii).join();
+            }
+        }
+
+        void fill(ByteBuffer buffer, int first, int last) {
+            for (int ii = first; ii < last; ii++) {
+                put(buffer, ii);
+            }
+        }
+
+        private byte[] compressBlock(int first, int last) {
+            ByteBuffer raw = ByteBuffer.allocate((last - first) * elementSize).order(ByteOrder.LITTLE_ENDIAN);
+            fill(raw, first, last);
+
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(raw.array());
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.capacity() / 2 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        /**
+         * Size of the header and the compressed blocks.
+         */
+        long appendedSize() {
+            long size = (3L + blocks.length) * Long.BYTES;
+            for (byte[] block : blocks) {
+                size += block.length;
+            }
+            return size;
+        }
+
+        void appendXml(StringBuilder xml, String indent) {
+            xml.append(indent).append("<DataArray type=\"").append(type).append("\" Name=\"").append(escape(name)).append('"');
+            if (components > 1) {
+                xml.append(" NumberOfComponents=\"").append(components).append('"');
+            }
+            xml.append(" format=\"appended\" offset=\"").append(offset).append("\"/>\n");
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            // header: number of blocks, block size, size of the last block, compressed sizes
+            ByteBuffer header = ByteBuffer.allocate((3 + blocks.length) * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long blockSize = (long) ELEMENTS_PER_BLOCK * elementSize;
+            long lastSize = (long) count * elementSize - (blocks.length - 1) * blockSize;
+            header.putLong(blocks.length);
+            header.putLong(count == 0 ? 0 : blockSize);
+            header.putLong(lastSize);
+            for (byte[] block : blocks) {
+                header.putLong(block.length);
+            }
+            header.flip();
+            write(channel, header);
+            for (byte[] block : blocks) {
+                write(channel, ByteBuffer.wrap(block));
+            }
+            blocks = null;
+        }
+    }
+
+    /**
+     * Data array with one element per vertex of the meshes.
+     */
+    private abstract static class VertexArray extends DataArray {
+
+        private final List<Mesh> meshes;
+        private final int[] vertexStart;
+
+        VertexArray(String name, String type, int components, int elementSize, List<Mesh> meshes, int[] vertexStart) {
+            super(name, type, components, elementSize, vertexStart[meshes.size()]);
+            this.meshes = meshes;
+            this.vertexStart = vertexStart;
+        }
+
+        abstract void put(ByteBuffer buffer, Mesh mesh, int vertex);
+
+        @Override
+        void put(ByteBuffer buffer, int element) {
+            fill(buffer, element, element + 1);
+        }
+
+        @Override
+        void fill(ByteBuffer buffer, int first, int last) {
+            int mesh = -1;
+            for (int ii = first; ii < last; ii++) {
+                if (mesh < 0 || ii >= vertexStart[mesh + 1]) {
+                    int index = Arrays.binarySearch(vertexStart, ii);
+                    mesh = index < 0 ? -index - 2 : index;
+                    while (vertexStart[mesh + 1] <= ii) {
+                        mesh++;
+                    }
+                }
+                put(buffer, meshes.get(mesh), ii - vertexStart[mesh]);
+            }
+        }
+    }
+}